@@ -0,0 +1,58 @@
+package jobshop.benchmarks;
+
+import jobshop.Instance;
+import jobshop.Instances;
+import jobshop.Schedule;
+import jobshop.encodings.JobNumbers;
+import jobshop.encodings.ResourceOrder;
+import jobshop.solvers.GreedySolver;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Random;
+
+/** Instance and solutions shared by the benchmarks of the core kernels.
+ *
+ * Instances go from small (ft06) to medium (la, abz) and large (ta71-ta80). They are read from the directory
+ * given by the `jobshop.instances` system property, `instances` by default.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkState {
+
+    @Param({"ft06", "la20", "la40", "abz7", "ta71", "ta80"})
+    public String instanceName;
+
+    public Instance instance;
+    /** random solution in the job numbers representation */
+    public JobNumbers jobNumbers;
+    /** solution of the EST_LRPT greedy heuristic */
+    public ResourceOrder resourceOrder;
+    /** schedule of resourceOrder */
+    public Schedule schedule;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        instance = Instances.get(instanceName);
+
+        jobNumbers = new JobNumbers(instance);
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                jobNumbers.jobs[jobNumbers.nextToSet++] = j;
+            }
+        }
+        Random random = new Random(0);
+        for(int i = jobNumbers.jobs.length - 1 ; i > 0 ; i--) {
+            int k = random.nextInt(i + 1);
+            int tmp = jobNumbers.jobs[k];
+            jobNumbers.jobs[k] = jobNumbers.jobs[i];
+            jobNumbers.jobs[i] = tmp;
+        }
+
+        schedule = new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(instance, Long.MAX_VALUE).schedule;
+        resourceOrder = new ResourceOrder(schedule);
+    }
+}
@@ -0,0 +1,91 @@
+package jobshop.benchmarks;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import jobshop.encodings.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/** Compares the worklist decoder of ResourceOrder.toSchedule() with the previous implementation,
+ * that rescanned every machine at each step. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecodeBenchmark {
+
+    /** the resource order of the state, as the matrix of Task objects the previous decoder worked on */
+    private Task[][] matrixTask;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkState state) {
+        Instance instance = state.instance;
+        matrixTask = new Task[instance.numMachines][instance.numJobs];
+        for(int m = 0 ; m < instance.numMachines ; m++)
+            for(int i = 0 ; i < instance.numJobs ; i++)
+                matrixTask[m][i] = state.resourceOrder.getTask(m, i);
+
+        // both decoders must agree
+        Schedule legacy = legacyToSchedule(instance, matrixTask);
+        for(int j = 0 ; j < instance.numJobs ; j++)
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                if(legacy.startTime(j, t) != state.schedule.startTime(j, t))
+                    throw new RuntimeException("Decoders disagree on " + state.instanceName + " for task (" + j + ", " + t + ")");
+    }
+
+    @Benchmark
+    public Schedule legacy(BenchmarkState state) {
+        return legacyToSchedule(state.instance, matrixTask);
+    }
+
+    @Benchmark
+    public Schedule worklist(BenchmarkState state) {
+        return state.resourceOrder.toSchedule();
+    }
+
+    /** Decoder previously used in ResourceOrder.toSchedule(), kept for comparison. */
+    static Schedule legacyToSchedule(Instance instance, Task[][] matrixTask) {
+        int [][] startTimes = new int [instance.numJobs][instance.numTasks];
+        int[] nextToScheduleByJob = new int[instance.numJobs];
+        int[] nextToScheduleByMachine = new int[instance.numMachines];
+        int[] releaseTimeOfMachine = new int[instance.numMachines];
+
+        while(IntStream.range(0, instance.numJobs).anyMatch(m -> nextToScheduleByJob[m] < instance.numTasks)) {
+            Optional<Task> schedulable =
+                    IntStream.range(0, instance.numMachines)
+                            .filter(m -> nextToScheduleByMachine[m] < instance.numJobs)
+                            .mapToObj(m -> matrixTask[m][nextToScheduleByMachine[m]])
+                            .filter(task -> task.task == nextToScheduleByJob[task.job])
+                            .findFirst();
+
+            if(schedulable.isPresent()) {
+                Task t = schedulable.get();
+                int machine = instance.machine(t.job, t.task);
+                int est = t.task == 0 ? 0 : startTimes[t.job][t.task-1] + instance.duration(t.job, t.task-1);
+                est = Math.max(est, releaseTimeOfMachine[machine]);
+                startTimes[t.job][t.task] = est;
+                nextToScheduleByJob[t.job]++;
+                nextToScheduleByMachine[machine]++;
+                releaseTimeOfMachine[machine] = est + instance.duration(t.job, t.task);
+            } else {
+                return null;
+            }
+        }
+        return new Schedule(instance, startTimes);
+    }
+}
@@ -0,0 +1,37 @@
+package jobshop.benchmarks;
+
+import jobshop.Schedule;
+import jobshop.encodings.ResourceOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Conversions between the encodings and schedules. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Benchmark
+    public Schedule jobNumbersToSchedule(BenchmarkState state) {
+        return state.jobNumbers.toSchedule();
+    }
+
+    @Benchmark
+    public Schedule resourceOrderToSchedule(BenchmarkState state) {
+        return state.resourceOrder.toSchedule();
+    }
+
+    @Benchmark
+    public ResourceOrder resourceOrderFromSchedule(BenchmarkState state) {
+        return new ResourceOrder(state.schedule);
+    }
+}
@@ -0,0 +1,42 @@
+package jobshop.benchmarks;
+
+import jobshop.Result;
+import jobshop.solvers.GreedySolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Construction of a solution by the greedy heuristic, for each priority rule. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GreedyBenchmark {
+
+    @Param({"SPT", "LPT", "SRPT", "LRPT", "EST_SPT", "EST_LRPT"})
+    public GreedySolver.Priority priority;
+
+    private GreedySolver solver;
+
+    @Setup
+    public void setup() {
+        solver = new GreedySolver(priority);
+    }
+
+    @Benchmark
+    public Result greedy(BenchmarkState state) {
+        return solver.solve(state.instance, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,32 @@
+package jobshop.benchmarks;
+
+import jobshop.encodings.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Analysis of a schedule. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleBenchmark {
+
+    @Benchmark
+    public List<Task> criticalPath(BenchmarkState state) {
+        return state.schedule.criticalPath();
+    }
+
+    @Benchmark
+    public boolean isValid(BenchmarkState state) {
+        return state.schedule.isValid();
+    }
+}
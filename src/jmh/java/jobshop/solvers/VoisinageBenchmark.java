@@ -0,0 +1,85 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.SolveContext;
+import jobshop.benchmarks.BenchmarkState;
+import jobshop.encodings.ResourceOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Extraction of the blocks of the critical path and evaluation of the neighborhood, in the package of Voisinage
+ * to reach its package-private API. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoisinageBenchmark {
+
+    /** Neighborhood of the critical path of the solution of the state, decoded exactly on a number of threads. */
+    @State(Scope.Benchmark)
+    public static class Neighborhood {
+
+        @Param({"1", "2", "4"})
+        public int threads;
+
+        ResourceOrder order;
+        Voisinage.Swaps swaps;
+        int[] makespans;
+        SolveContext context;
+        ParallelNeighborhood scan;
+
+        @Setup(Level.Trial)
+        public void setup(BenchmarkState state) {
+            Instance instance = state.instance;
+            order = state.resourceOrder.copy();
+            DisjunctiveGraph graph = new DisjunctiveGraph(order);
+            graph.update();
+            swaps = new Voisinage.Swaps(instance.numJobs * instance.numTasks);
+            Voisinage.neighborsOfCriticalPath(graph, swaps);
+            makespans = new int[swaps.size];
+            context = new SolveContext(instance, Long.MAX_VALUE);
+            scan = new ParallelNeighborhood(instance, threads);
+
+            // the makespans must not depend on the number of threads
+            int[] expected = new int[swaps.size];
+            try (ParallelNeighborhood single = new ParallelNeighborhood(instance, 1)) {
+                single.evaluate(order, swaps, expected, context);
+            }
+            scan.evaluate(order, swaps, makespans, context);
+            if(!Arrays.equals(expected, makespans))
+                throw new RuntimeException("The makespans of the neighbors depend on the number of threads");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            scan.close();
+        }
+    }
+
+    @Benchmark
+    public List<Voisinage.Block> blocksOfCriticalPath(BenchmarkState state) {
+        return Voisinage.blocksOfCriticalPath(state.resourceOrder);
+    }
+
+    @Benchmark
+    public int[] evaluateNeighborhood(Neighborhood neighborhood) {
+        neighborhood.scan.evaluate(neighborhood.order, neighborhood.swaps, neighborhood.makespans, neighborhood.context);
+        return neighborhood.makespans;
+    }
+}
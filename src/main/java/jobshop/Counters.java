@@ -0,0 +1,67 @@
+package jobshop;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Counters of the work done during a solve, incremented by the solvers as they go.
+ *
+ * The counters can be incremented from several threads. Solvers count in batches where they can (one call per
+ * neighborhood rather than per neighbor), so that counting stays negligible next to the counted work.
+ */
+public class Counters {
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    final LongAdder iterations = new LongAdder();
+    final LongAdder neighbors = new LongAdder();
+    final LongAdder decodes = new LongAdder();
+    final LongAdder infeasibleMoves = new LongAdder();
+    final LongAdder criticalPaths = new LongAdder();
+    final LongAdder allocatedBytes = new LongAdder();
+
+    /** One iteration of the main loop of a solver (a move, a sample...). */
+    public void iteration() {
+        iterations.increment();
+    }
+
+    /** Several iterations at once. */
+    public void iterations(long n) {
+        iterations.add(n);
+    }
+
+    /** Neighbors evaluated, either estimated or decoded. */
+    public void neighbors(long n) {
+        neighbors.add(n);
+    }
+
+    /** Full computations of the start times of a solution. */
+    public void decodes(long n) {
+        decodes.add(n);
+    }
+
+    /** Moves that led to a solution with a cycle. */
+    public void infeasibleMoves(long n) {
+        infeasibleMoves.add(n);
+    }
+
+    /** Extraction of the critical path (and its blocks) of a solution. */
+    public void criticalPath() {
+        criticalPaths.increment();
+    }
+
+    /** Bytes allocated by a helper thread working on the solve, as measured with threadAllocatedBytes(). */
+    public void allocated(long bytes) {
+        if(bytes > 0)
+            allocatedBytes.add(bytes);
+    }
+
+    /** Bytes allocated so far by the current thread, -1 if the JVM does not measure it. */
+    @SuppressWarnings("deprecation")
+    public static long threadAllocatedBytes() {
+        if(threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
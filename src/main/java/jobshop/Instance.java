@@ -1,11 +1,13 @@
 package jobshop;
 
+import jobshop.encodings.Task;
+
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.Scanner;
-import java.util.stream.Collectors;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class Instance {
 
@@ -18,53 +20,157 @@ public class Instance {
     /** Number of machines, assumed to be same as number of tasks. */
     public final int numMachines;
 
-    final int[][] durations;
-    final int[][] machines;
+    /** Duration of every task in row-major order: the duration of task (job, task) is at index op(job, task).
+     * Must not be modified. */
+    public final int[] durations;
+
+    /** Machine of every task in row-major order: the machine of task (job, task) is at index op(job, task).
+     * Must not be modified. */
+    public final int[] machines;
+
+    /** For each machine and each job, the task of the job executing on the machine,
+     * at index machine * numJobs + job. */
+    private final int[] taskWithMachine;
+
+    /** Sum of the durations of a task and all the following tasks of its job, at index op(job, task). */
+    private final int[] remainingDurations;
+
+    /** The Task object of every task, at index op(job, task), shared by all the users of the instance. */
+    private final Task[] tasks;
+
+    /** LowerBound.of(this), computed at the first call of lowerBound(), -1 before */
+    private volatile int lowerBound = -1;
+
+    /** Index of task (job, task) in the row-major arrays of the instance. */
+    public int op(int job, int task) {
+        return job * numTasks + task;
+    }
+
+    /** The Task (job, task) of the given index, without allocating: the same object is returned for each call. */
+    public Task task(int op) {
+        return tasks[op];
+    }
 
     public int duration(int job, int task) {
-        return durations[job][task];
+        return durations[job * numTasks + task];
     }
     public int machine(int job, int task) {
-        return machines[job][task];
+        return machines[job * numTasks + task];
     }
 
     /** among the tasks of the given job, returns the task index that uses the given machine. */
     public int task_with_machine(int job, int wanted_machine) {
-        for(int task = 0 ; task < numTasks ; task++) {
-            if(machine(job, task) == wanted_machine)
-                return task;
+        return taskWithMachine[wanted_machine * numJobs + job];
+    }
+
+    /** Sum of the durations of the given task and of all the tasks following it in its job. */
+    public int remainingDuration(int job, int task) {
+        return remainingDurations[job * numTasks + task];
+    }
+
+    /** Lower bound of the makespan of the instance, computed once and shared by all the solves of the instance.
+     * Concurrent first calls may each compute it, to the same value. */
+    public int lowerBound() {
+        int bound = lowerBound;
+        if(bound < 0) {
+            bound = LowerBound.of(this);
+            lowerBound = bound;
         }
-        throw new RuntimeException("No task targeting machine "+wanted_machine+" on job "+job);
+        return bound;
     }
 
-    Instance(int numJobs, int numTasks) {
+    /** Creates an instance from its row-major arrays, where the task (job, task) is at index job * numTasks + task.
+     * The arrays are not copied. */
+    public Instance(int numJobs, int numTasks, int[] machines, int[] durations) {
         this.numJobs = numJobs;
         this.numTasks = numTasks;
         this.numMachines = numTasks;
+        this.machines = machines;
+        this.durations = durations;
 
-        durations = new int[numJobs][numTasks];
-        machines = new int[numJobs][numTasks];
+        taskWithMachine = new int[numMachines * numJobs];
+        Arrays.fill(taskWithMachine, -1);
+        remainingDurations = new int[numJobs * numTasks];
+        tasks = new Task[numJobs * numTasks];
+        for(int job = 0 ; job < numJobs ; job++) {
+            int remaining = 0;
+            for(int task = numTasks - 1 ; task >= 0 ; task--) {
+                remaining += duration(job, task);
+                remainingDurations[op(job, task)] = remaining;
+                taskWithMachine[machine(job, task) * numJobs + job] = task;
+                tasks[op(job, task)] = new Task(job, task);
+            }
+            for(int machine = 0 ; machine < numMachines ; machine++) {
+                if(taskWithMachine[machine * numJobs + job] == -1)
+                    throw new RuntimeException("No task targeting machine "+machine+" on job "+job);
+            }
+        }
     }
 
+    /** Reads an instance in the format of the `instances/` directory: the numbers of jobs and tasks, then for each
+     * job the machine and the duration of each task. Lines starting with # are comments, as well as the end of a
+     * line after a #.
+     *
+     * The file is mapped in memory and tokenized directly from its bytes. */
     public static Instance fromFile(Path path) throws IOException {
-        Iterator<String> lines = Files.readAllLines(path).stream()
-                .filter(l -> !l.startsWith("#"))
-                .collect(Collectors.toList())
-                .iterator();
-
-        Scanner header = new Scanner(lines.next());
-        int num_jobs = header.nextInt();
-        int num_tasks = header.nextInt();
-        Instance pb = new Instance(num_jobs, num_tasks);
-
-        for(int job = 0 ; job<num_jobs ; job++) {
-            Scanner line = new Scanner(lines.next());
-            for(int task = 0 ; task < num_tasks ; task++) {
-                pb.machines[job][task] = line.nextInt();
-                pb.durations[job][task] = line.nextInt();
+        ByteBuffer buffer;
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Tokenizer tokens = new Tokenizer(buffer, path);
+
+        int num_jobs = tokens.nextInt();
+        int num_tasks = tokens.nextInt();
+        int[] machines = new int[num_jobs * num_tasks];
+        int[] durations = new int[num_jobs * num_tasks];
+
+        for(int i = 0 ; i < num_jobs * num_tasks ; i++) {
+            machines[i] = tokens.nextInt();
+            durations[i] = tokens.nextInt();
+        }
+
+        return new Instance(num_jobs, num_tasks, machines, durations);
+    }
+
+    /** Reads the integers of an instance file, skipping blanks and comments. */
+    private static class Tokenizer {
+        private final ByteBuffer buffer;
+        private final Path path;
+
+        Tokenizer(ByteBuffer buffer, Path path) {
+            this.buffer = buffer;
+            this.path = path;
+        }
+
+        int nextInt() throws IOException {
+            skipBlanksAndComments();
+            boolean negative = buffer.hasRemaining() && buffer.get(buffer.position()) == '-';
+            if(negative)
+                buffer.get();
+            if(!buffer.hasRemaining() || !isDigit(buffer.get(buffer.position())))
+                throw new IOException("Malformed instance "+path+": expected an integer at byte "+buffer.position());
+            int value = 0;
+            while(buffer.hasRemaining() && isDigit(buffer.get(buffer.position()))) {
+                value = value * 10 + (buffer.get() - '0');
             }
+            return negative ? -value : value;
         }
 
-        return pb;
+        private void skipBlanksAndComments() {
+            while(buffer.hasRemaining()) {
+                byte b = buffer.get(buffer.position());
+                if(b == '#') {
+                    while(buffer.hasRemaining() && buffer.get() != '\n') { }
+                } else if(b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+                    buffer.get();
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
     }
 }
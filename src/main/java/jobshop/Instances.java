@@ -0,0 +1,38 @@
+package jobshop;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Registry of the instances of the `instances/` directory, shared by the whole process.
+ *
+ * An instance is parsed the first time it is requested and cached by name afterwards. Instances are never modified,
+ * so the cached objects can be used by any number of threads. The directory can be changed with the
+ * `jobshop.instances` system property.
+ */
+public final class Instances {
+
+    /** directory of the instance files */
+    public static final Path DIRECTORY = Paths.get(System.getProperty("jobshop.instances", "instances"));
+
+    private static final ConcurrentHashMap<String, Instance> cache = new ConcurrentHashMap<>();
+
+    private Instances() {}
+
+    /** Returns the instance with the given name, loading it from the instance directory on the first call. */
+    public static Instance get(String name) throws IOException {
+        try {
+            return cache.computeIfAbsent(name, n -> {
+                try {
+                    return Instance.fromFile(DIRECTORY.resolve(n));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package jobshop;
+
+/** Lower bounds of the makespan of an instance.
+ *
+ * Each task has a head, the total duration of the tasks before it in its job, and a tail, the total duration of the
+ * tasks after it. No schedule can end before the length of a job, nor before the smallest head of a machine plus its
+ * load plus its smallest tail. The one-machine bound relaxes everything but one machine and allows preemption:
+ * Jackson's preemptive schedule, which always runs the released task with the largest tail, is then optimal.
+ * All the bounds run in O(numMachines * numJobs^2) at most.
+ */
+public final class LowerBound {
+
+    private LowerBound() {}
+
+    /** Best of the bounds of this class. */
+    public static int of(Instance instance) {
+        return Math.max(jobLengths(instance), Math.max(machineLoads(instance), jackson(instance)));
+    }
+
+    /** Length of the longest job. */
+    public static int jobLengths(Instance instance) {
+        int bound = 0;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            bound = Math.max(bound, instance.remainingDuration(j, 0));
+        }
+        return bound;
+    }
+
+    /** Largest load of a machine, plus the smallest head and the smallest tail of its tasks. */
+    public static int machineLoads(Instance instance) {
+        int bound = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            int load = 0;
+            int minHead = Integer.MAX_VALUE;
+            int minTail = Integer.MAX_VALUE;
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                int t = instance.task_with_machine(j, m);
+                load += instance.duration(j, t);
+                minHead = Math.min(minHead, head(instance, j, t));
+                minTail = Math.min(minTail, tail(instance, j, t));
+            }
+            bound = Math.max(bound, minHead + load + minTail);
+        }
+        return bound;
+    }
+
+    /** Largest makespan of the preemptive one-machine relaxations, solved with Jackson's preemptive schedule. */
+    public static int jackson(Instance instance) {
+        int n = instance.numJobs;
+        int numOps = n * instance.numTasks;
+        int[] heads = new int[numOps];
+        int[] tails = new int[numOps];
+        for(int j = 0 ; j < n ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                heads[instance.op(j, t)] = head(instance, j, t);
+                tails[instance.op(j, t)] = tail(instance, j, t);
+            }
+        }
+        int[] ops = new int[n];
+        int[] byHead = new int[n];
+        int[] remaining = new int[n];
+
+        int bound = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int j = 0 ; j < n ; j++) {
+                ops[j] = instance.op(j, instance.task_with_machine(j, m));
+            }
+            bound = Math.max(bound, jackson(ops, 0, n, heads, tails, instance.durations, byHead, remaining));
+        }
+        return bound;
+    }
+
+    /** Makespan of Jackson's preemptive schedule of the n tasks ops[from .. from + n) of a machine, given the heads,
+     * tails and durations of all the tasks: the released task with the largest tail is always executed, preempted
+     * by the release of a larger tail. byHead and remaining are buffers of at least n ints.
+     * Runs in O(n^2), without allocating: the machines have few tasks. */
+    public static int jackson(int[] ops, int from, int n, int[] heads, int[] tails, int[] durations,
+                              int[] byHead, int[] remaining) {
+        // tasks by increasing head (insertion sort)
+        for(int j = 0 ; j < n ; j++) {
+            int head = heads[ops[from + j]];
+            int i = j;
+            while(i > 0 && heads[ops[from + byHead[i - 1]]] > head) {
+                byHead[i] = byHead[i - 1];
+                i--;
+            }
+            byHead[i] = j;
+            remaining[j] = durations[ops[from + j]];
+        }
+        int bound = 0;
+        int time = 0;
+        int released = 0;
+        int done = 0;
+        while(done < n) {
+            if(released == done)
+                time = Math.max(time, heads[ops[from + byHead[released]]]);
+            while(released < n && heads[ops[from + byHead[released]]] <= time) {
+                int op = ops[from + byHead[released++]];
+                // a task without duration ends as soon as it is released
+                if(durations[op] == 0) {
+                    done++;
+                    bound = Math.max(bound, heads[op] + tails[op]);
+                }
+            }
+            int selected = -1;
+            for(int i = 0 ; i < released ; i++) {
+                int j = byHead[i];
+                if(remaining[j] > 0 && (selected == -1 || tails[ops[from + j]] > tails[ops[from + selected]]))
+                    selected = j;
+            }
+            if(selected == -1)
+                continue;
+            int nextRelease = released < n ? heads[ops[from + byHead[released]]] : Integer.MAX_VALUE;
+            int run = Math.min(remaining[selected], nextRelease - time);
+            time += run;
+            remaining[selected] -= run;
+            if(remaining[selected] == 0) {
+                done++;
+                bound = Math.max(bound, time + tails[ops[from + selected]]);
+            }
+        }
+        return bound;
+    }
+
+    private static int head(Instance instance, int job, int task) {
+        return instance.remainingDuration(job, 0) - instance.remainingDuration(job, task);
+    }
+
+    private static int tail(Instance instance, int job, int task) {
+        return instance.remainingDuration(job, task) - instance.duration(job, task);
+    }
+}
@@ -1,14 +1,22 @@
 package jobshop;
 
+import java.io.FileNotFoundException;
 import java.io.PrintStream;
-import java.nio.file.Path;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
+import jobshop.io.SolutionStore;
 import jobshop.solvers.*;
 import net.sourceforge.argparse4j.ArgumentParsers;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
@@ -18,8 +26,8 @@ import net.sourceforge.argparse4j.inf.Namespace;
 
 public class Main {
 
-    /** All solvers available in this program */
-    private static HashMap<String, Solver> solvers;
+    /** All solvers available in this program. Each one may run on several instances at the same time (--parallel). */
+    private static final HashMap<String, Solver> solvers;
     static {
         solvers = new HashMap<>();
         solvers.put("basic", new BasicSolver());
@@ -45,6 +53,23 @@ public class Main {
         solvers.put("taboo200-20", new TabooSolver(200,20));
         solvers.put("taboo200-50", new TabooSolver(200,50));
         solvers.put("taboo1000-50", new TabooSolver(1000,50));
+        // neighbors decoded exactly, on all the available cores
+        int cores = Runtime.getRuntime().availableProcessors();
+        solvers.put("descent-par", new DescentSolver(cores));
+        solvers.put("taboo200-20-par", new TabooSolver(200,20,cores));
+        solvers.put("taboo1000-50-par", new TabooSolver(1000,50,cores));
+        solvers.put("random-par", new RandomSolver(cores));
+        // one taboo search per core, exchanging their best solutions every 100 iterations
+        solvers.put("islands1000-50", new IslandTabooSolver(Math.max(cores, 2), 1000, 50, 100));
+        solvers.put("islands10000-50", new IslandTabooSolver(Math.max(cores, 2), 10000, 50, 100));
+        // runs some of the above solvers concurrently and keeps the best schedule
+        LinkedHashMap<String, Solver> portfolio = new LinkedHashMap<>();
+        for(String name : new String[]{"est_lrpt", "est_spt", "descent", "taboo100-10", "taboo200-20", "taboo1000-50"}) {
+            portfolio.put(name, solvers.get(name));
+        }
+        solvers.put("portfolio", new PortfolioSolver(portfolio));
+        // exact, for the small instances
+        solvers.put("bnb", new BranchAndBoundSolver());
         // add new solvers here
     }
 
@@ -67,6 +92,28 @@ public class Main {
                 .nargs("+")
                 .required(true)
                 .help("Instance(s) to solve (space separated if more than one)");
+        parser.addArgument("--parallel")
+                .setDefault(1)
+                .type(Integer.class)
+                .help("Number of (instance, solver) runs executed simultaneously");
+        parser.addArgument("--warm-start")
+                .nargs("?")
+                .setConst("solutions")
+                .metavar("DIR")
+                .help("Start the taboo and descent solvers from the best solutions stored in DIR, and store there " +
+                        "the solutions that improve them");
+        parser.addArgument("--target-gap")
+                .type(Double.class)
+                .metavar("PERCENT")
+                .help("Stop each run as soon as its makespan is within PERCENT of the best known result");
+        parser.addArgument("--stats")
+                .metavar("FILE")
+                .help("Write the counters of every run (iterations, neighbors, decodes, ...) to FILE, " +
+                        "in JSON if its name ends with .json, in CSV otherwise");
+        parser.addArgument("--trace")
+                .metavar("FILE")
+                .help("Write every improvement found by the solvers to FILE, as CSV lines " +
+                        "instance,solver,time_ms,makespan");
 
         Namespace ns = null;
         try {
@@ -79,6 +126,34 @@ public class Main {
         PrintStream output = System.out;
 
         long solveTimeMs = ns.getLong("timeout") * 1000;
+        int parallelism = ns.getInt("parallel");
+        if(parallelism < 1) {
+            System.err.println("ERROR: --parallel expects a positive number of runs, got " + parallelism);
+            System.exit(1);
+        }
+
+        Double targetGap = ns.get("target_gap");
+        PrintStream trace = null;
+        if(ns.getString("trace") != null) {
+            try {
+                trace = new PrintStream(ns.getString("trace"));
+            } catch (FileNotFoundException e) {
+                System.err.println("ERROR: cannot write the trace: " + e.getMessage());
+                System.exit(1);
+            }
+            trace.println("instance,solver,time_ms,makespan");
+        }
+
+        String warmStart = ns.getString("warm_start");
+        if(warmStart != null) {
+            SolutionStore store = new SolutionStore(Paths.get(warmStart));
+            for(Solver solver : solvers.values()) {
+                if(solver instanceof TabooSolver)
+                    ((TabooSolver) solver).setSolutionStore(store);
+                else if(solver instanceof DescentSolver)
+                    ((DescentSolver) solver).setSolutionStore(store);
+            }
+        }
 
         List<String> solversToTest = ns.getList("solver");
         for(String solverName : solversToTest) {
@@ -94,13 +169,16 @@ public class Main {
         instancesCorrect.addAll(instances);
         for(String instanceName : instances) {
             if(!BestKnownResult.isKnown(instanceName)) {
-                if(instanceName.equals("ft") || instanceName.equals("la") ){
-                    instancesCorrect.remove(instanceName);
-                    for(String instance : BestKnownResult.instances){
-                        if(instance.startsWith(instanceName)){
-                            instancesCorrect.add(instance);
-                        }
+                // a prefix such as "ft", "la" or "ta" selects all the instances of the family
+                List<String> family = new ArrayList<>();
+                for(String instance : BestKnownResult.instances){
+                    if(instance.startsWith(instanceName)){
+                        family.add(instance);
                     }
+                }
+                if(!family.isEmpty()){
+                    instancesCorrect.remove(instanceName);
+                    instancesCorrect.addAll(family);
                 }else{
                     System.err.println("ERROR: instance \"" + instanceName + "\" is not avalaible.");
                     System.err.println("       available instances: " + Arrays.toString(BestKnownResult.instances));
@@ -112,7 +190,13 @@ public class Main {
 
         float[] runtimes = new float[solversToTest.size()];
         float[] distances = new float[solversToTest.size()];
+        long[] maxOvershoots = new long[solversToTest.size()];
+        String statsFile = ns.getString("stats");
+        boolean statsAsJson = statsFile != null && statsFile.endsWith(".json");
+        List<String> statsRecords = new ArrayList<>();
 
+        // runs of the (instance, solver) matrix, at most `parallelism` of them at the same time
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
         try {
             output.print(  "                         ");;
             for(String s : solversToTest)
@@ -120,56 +204,94 @@ public class Main {
             output.println();
             output.print("instance size  best      ");
             for(String s : solversToTest) {
-                output.print("runtime makespan ecart        ");
+                output.print("runtime makespan ecart   over ");
             }
             output.println();
 
-
+        // submit all runs, row by row
+        List<Instance> loaded = new ArrayList<>();
+        List<List<Future<Run>>> rows = new ArrayList<>();
         for(String instanceName : instances) {
-            int bestKnown = BestKnownResult.of(instanceName);
-
+            Instance instance = Instances.get(instanceName);
+            loaded.add(instance);
+            int target = targetGap == null
+                    ? SolveContext.NO_TARGET
+                    : (int) Math.floor(BestKnownResult.of(instanceName) * (1 + targetGap / 100));
+
+            List<Future<Run>> row = new ArrayList<>();
+            for(String solverName : solversToTest) {
+                Solver solver = solvers.get(solverName);
+                final PrintStream out = trace;
+                SolveContext.Listener listener = out == null ? null
+                        : (elapsedMs, makespan, schedule) -> out.println(instanceName + "," + solverName + "," + elapsedMs + "," + makespan);
+                row.add(pool.submit(() -> Run.of(solver, instance, solveTimeMs, target, listener)));
+            }
+            rows.add(row);
+        }
 
-            Path path = Paths.get("instances/", instanceName);
-            Instance instance = Instance.fromFile(path);
+        // rows are printed in order, each one as soon as its runs and the previous rows are done
+        for(int instanceId = 0 ; instanceId < instances.size() ; instanceId++) {
+            String instanceName = instances.get(instanceId);
+            Instance instance = loaded.get(instanceId);
+            int bestKnown = BestKnownResult.of(instanceName);
 
             output.printf("%-8s %-5s %4d      ",instanceName, instance.numJobs +"x"+instance.numTasks, bestKnown);
 
             for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
-                String solverName = solversToTest.get(solverId);
-                Solver solver = solvers.get(solverName);
-                long start = System.currentTimeMillis();
-                long deadline = System.currentTimeMillis() + solveTimeMs;
-                Result result = solver.solve(instance, deadline);
-                long runtime = System.currentTimeMillis() - start;
+                Run run = rows.get(instanceId).get(solverId).get();
 
-                if(!result.schedule.isValid()) {
-                    System.err.println("ERROR: solver returned an invalid schedule");
+                if(run.violation.isPresent()) {
+                    System.err.println("ERROR: solver returned an invalid schedule: " + run.violation.get());
                     System.exit(1);
                 }
 
-                assert result.schedule.isValid();
-                int makespan = result.schedule.makespan();
+                int makespan = run.result.schedule.makespan();
                 float dist = 100f * (makespan - bestKnown) / (float) bestKnown;
-                runtimes[solverId] += (float) runtime / (float) instances.size();
+                runtimes[solverId] += (float) run.runtime / (float) instances.size();
                 distances[solverId] += dist / (float) instances.size();
+                maxOvershoots[solverId] = Math.max(maxOvershoots[solverId], run.overshoot);
 
-                output.printf("%7d %8s %5.1f        ", runtime, makespan, dist);
+                output.printf("%7d %8s %5.1f %6d ", run.runtime, makespan, dist, run.overshoot);
+                if(statsFile != null)
+                    statsRecords.add(statsRecord(statsAsJson, instanceName, solversToTest.get(solverId), run, makespan, dist));
                 output.flush();
             }
             output.println();
+            // member of each portfolio that found the schedule of the row
+            for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
+                Result result = rows.get(instanceId).get(solverId).get().result;
+                if(result instanceof PortfolioSolver.PortfolioResult)
+                    output.printf("         %s: best schedule found by %s%n", solversToTest.get(solverId),
+                            ((PortfolioSolver.PortfolioResult) result).origin);
+            }
 
         }
 
 
         output.printf("%-8s %-5s %4s      ", "AVG", "-", "-");
         for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
-            output.printf("%7.1f %8s %5.1f        ", runtimes[solverId], "-", distances[solverId]);
+            // worst overshoot rather than the average, since it bounds the latency of a solve
+            output.printf("%7.1f %8s %5.1f %6d ", runtimes[solverId], "-", distances[solverId], maxOvershoots[solverId]);
         }
 
 
         // affichage pour graphiques
         System.out.println("");
 
+        if(statsFile != null) {
+            List<String> lines = new ArrayList<>();
+            if(statsAsJson) {
+                lines.add("[");
+                for(int i = 0 ; i < statsRecords.size() ; i++)
+                    lines.add("  " + statsRecords.get(i) + (i + 1 < statsRecords.size() ? "," : ""));
+                lines.add("]");
+            } else {
+                lines.add("instance,solver,runtime_ms,makespan,ecart,overshoot_ms,cause," + SolveStats.CSV_HEADER);
+                lines.addAll(statsRecords);
+            }
+            Files.write(Paths.get(statsFile), lines);
+        }
+
 //        for (int solverId = 0; solverId < solversToTest.size(); solverId++) {
 //            System.out.println("---------------------------------");
 //            String solverName = solversToTest.get(solverId);
@@ -190,6 +312,53 @@ public class Main {
         } catch (Exception e) {
             e.printStackTrace();
             System.exit(1);
+        } finally {
+            pool.shutdownNow();
+            if(trace != null)
+                trace.close();
+        }
+    }
+
+    /** One line of the --stats file: the columns of the table, the exit cause and the counters of the run. */
+    private static String statsRecord(boolean json, String instance, String solver, Run run, int makespan, float dist) {
+        SolveStats stats = run.result.stats;
+        String ecart = String.format(Locale.ROOT, "%.2f", dist);
+        if(json) {
+            return "{\"instance\": \"" + instance + "\", \"solver\": \"" + solver + "\", \"runtime_ms\": " + run.runtime
+                    + ", \"makespan\": " + makespan + ", \"ecart\": " + ecart + ", \"overshoot_ms\": " + run.overshoot
+                    + ", \"cause\": \"" + run.result.cause + "\""
+                    + (stats == null ? "" : ", " + stats.toJsonMembers()) + "}";
+        }
+        return instance + "," + solver + "," + run.runtime + "," + makespan + "," + ecart + "," + run.overshoot + ","
+                + run.result.cause + "," + (stats == null ? ",,,,,," : stats.toCsv());
+    }
+
+    /** Outcome of one solver on one instance. */
+    private static class Run {
+        final Result result;
+        /** time taken by the solver in milliseconds */
+        final long runtime;
+        /** time by which the solver returned after its deadline in milliseconds, 0 if it returned in time */
+        final long overshoot;
+        /** first constraint violated by the schedule returned, if any */
+        final Optional<Schedule.Violation> violation;
+
+        private Run(Result result, long runtime, long overshoot, Optional<Schedule.Violation> violation) {
+            this.result = result;
+            this.runtime = runtime;
+            this.overshoot = overshoot;
+            this.violation = violation;
+        }
+
+        /** Solves the instance with its own time budget and checks the validity of the result. */
+        static Run of(Solver solver, Instance instance, long solveTimeMs, int target, SolveContext.Listener listener) {
+            SolveContext context = SolveContext.withBudget(instance, solveTimeMs * 1_000_000, target, listener);
+            long start = System.nanoTime();
+            Result result = solver.solve(context);
+            long end = System.nanoTime();
+            long runtime = (end - start) / 1_000_000;
+            long overshoot = Math.max(0, end - context.deadlineNanos()) / 1_000_000;
+            return new Run(result, runtime, overshoot, result.schedule.violation(true));
         }
     }
 }
@@ -5,18 +5,29 @@ import java.util.Optional;
 public class Result {
 
     public Result(Instance instance, Schedule schedule, ExitCause cause) {
+        this(instance, schedule, cause, null);
+    }
+
+    public Result(Instance instance, Schedule schedule, ExitCause cause, SolveStats stats) {
         this.instance = instance;
         this.schedule = schedule;
         this.cause = cause;
+        this.stats = stats;
     }
 
     public enum ExitCause {
-        Timeout, ProvedOptimal, Blocked
+        Timeout, ProvedOptimal, Blocked,
+        /** an incumbent reached the target makespan of the SolveContext */
+        TargetReached,
+        /** the solve was cancelled or its thread interrupted */
+        Cancelled
     }
 
     public final Instance instance;
     public final Schedule schedule;
     public final ExitCause cause;
+    /** work done by the solver, null if it was not measured */
+    public final SolveStats stats;
 
 
 }
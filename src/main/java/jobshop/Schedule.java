@@ -24,35 +24,129 @@ public class Schedule {
         return times[job][task];
     }
 
+    /** A constraint violated by a schedule: a task starting before 0, before the end of the previous task of its job,
+     * or overlapping another task of its machine. */
+    public static final class Violation {
+        /** the task violating the constraint */
+        public final int job;
+        public final int task;
+        /** the task it conflicts with, -1 for a negative start time */
+        public final int otherJob;
+        public final int otherTask;
+        /** machine of the task */
+        public final int machine;
+        /** start and end times of the task, then of the other task (0 if none) */
+        public final int start, end, otherStart, otherEnd;
+
+        Violation(Schedule s, int job, int task, int otherJob, int otherTask) {
+            this.job = job;
+            this.task = task;
+            this.otherJob = otherJob;
+            this.otherTask = otherTask;
+            this.machine = s.pb.machine(job, task);
+            this.start = s.startTime(job, task);
+            this.end = start + s.pb.duration(job, task);
+            this.otherStart = otherJob < 0 ? 0 : s.startTime(otherJob, otherTask);
+            this.otherEnd = otherJob < 0 ? 0 : otherStart + s.pb.duration(otherJob, otherTask);
+        }
+
+        @Override
+        public String toString() {
+            String task = "task (" + job + "," + this.task + ") on machine " + machine + " [" + start + "," + end + ")";
+            if(otherJob < 0)
+                return task + " starts before 0";
+            String other = "(" + otherJob + "," + otherTask + ") [" + otherStart + "," + otherEnd + ")";
+            if(otherJob == job)
+                return task + " starts before the end of the previous task of its job " + other;
+            return task + " overlaps " + other + " on its machine";
+        }
+    }
+
     /** Returns true if this schedule is valid (no constraint is violated) */
     public boolean isValid() {
+        return !violation(false).isPresent();
+    }
+
+    /** Returns the first violated constraint, if any: the jobs are checked first, then the machines in order.
+     *
+     * The tasks of each machine are sorted by start time then checked against the latest end time of the tasks
+     * before them, in O(numMachines * numJobs * log(numJobs)). With parallel, the machines are checked in parallel,
+     * the violation reported being the same.
+     */
+    public Optional<Violation> violation(boolean parallel) {
         for(int j = 0 ; j<pb.numJobs ; j++) {
-            for(int t = 1 ; t<pb.numTasks ; t++) {
-                if(startTime(j, t-1) + pb.duration(j, t-1) > startTime(j, t))
-                    return false;
-            }
             for(int t = 0 ; t<pb.numTasks ; t++) {
                 if(startTime(j, t) < 0)
-                    return false;
+                    return Optional.of(new Violation(this, j, t, -1, -1));
+                if(t > 0 && startTime(j, t-1) + pb.duration(j, t-1) > startTime(j, t))
+                    return Optional.of(new Violation(this, j, t, j, t-1));
             }
         }
 
-        for (int machine = 0 ; machine < pb.numMachines ; machine++) {
-            for(int j1=0 ; j1<pb.numJobs ; j1++) {
-                int t1 = pb.task_with_machine(j1, machine);
-                for(int j2=j1+1 ; j2<pb.numJobs ; j2++) {
-                    int t2 = pb.task_with_machine(j2, machine);
+        // tasks of each machine, as indices of the row-major arrays of the instance
+        int[] count = new int[pb.numMachines + 1];
+        for(int op = 0 ; op < pb.machines.length ; op++) {
+            count[pb.machines[op] + 1]++;
+        }
+        for(int m = 0 ; m < pb.numMachines ; m++) {
+            count[m + 1] += count[m];
+        }
+        int[] first = count.clone();
+        int[] byMachine = new int[pb.machines.length];
+        for(int op = 0 ; op < pb.machines.length ; op++) {
+            byMachine[count[pb.machines[op]]++] = op;
+        }
 
-                    boolean t1_first = startTime(j1, t1) + pb.duration(j1, t1) <= startTime(j2, t2);
-                    boolean t2_first = startTime(j2, t2) + pb.duration(j2, t2) <= startTime(j1, t1);
+        IntStream machines = IntStream.range(0, pb.numMachines);
+        if(parallel)
+            machines = machines.parallel();
+        return machines
+                .mapToObj(m -> machineViolation(byMachine, first[m], first[m + 1]))
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
 
-                    if(!t1_first && !t2_first)
-                        return false;
-                }
+    /** First overlap between the tasks byMachine[from..to[, all on the same machine, null if there is none. */
+    private Violation machineViolation(int[] byMachine, int from, int to) {
+        // (start, end) of each task packed in a long, sorted by start time then end time: an empty task starting
+        // with a non-empty one comes first, and does not overlap it, as with a pairwise comparison
+        long[] intervals = new long[to - from];
+        for(int i = from ; i < to ; i++) {
+            int op = byMachine[i];
+            int start = times[op / pb.numTasks][op % pb.numTasks];
+            intervals[i - from] = ((long) start << 32) | (start + pb.durations[op]);
+        }
+        Arrays.sort(intervals);
+
+        // interval of the task ending last among the previous ones, which all start before or with the current one
+        long latest = -1;
+        for(long interval : intervals) {
+            int start = (int) (interval >>> 32);
+            if(latest != -1 && (int) latest > start) {
+                int op = opOf(byMachine, from, to, interval, -1);
+                int other = opOf(byMachine, from, to, latest, interval);
+                return new Violation(this, op / pb.numTasks, op % pb.numTasks, other / pb.numTasks, other % pb.numTasks);
             }
+            if(latest == -1 || (int) interval > (int) latest)
+                latest = interval;
         }
+        return null;
+    }
 
-        return true;
+    /** Index of a task of byMachine[from..to[ with the given (start, end) interval, other than the one of excluded
+     * (which has the same interval when two identical tasks overlap). */
+    private int opOf(int[] byMachine, int from, int to, long interval, long excluded) {
+        int skipped = interval == excluded ? 1 : 0;
+        for(int i = from ; i < to ; i++) {
+            int op = byMachine[i];
+            int start = times[op / pb.numTasks][op % pb.numTasks];
+            if(start == (int) (interval >>> 32) && start + pb.durations[op] == (int) interval) {
+                if(skipped-- > 0)
+                    continue;
+                return op;
+            }
+        }
+        throw new IllegalStateException("No task with interval " + interval);
     }
 
     public int makespan() {
@@ -89,64 +183,81 @@ public class Schedule {
         return true;
     }
 
+    /** Returns a critical path: it ends with the first job ending at the makespan, and each task is preceded by its
+     * predecessor in the job if it ends at its start, otherwise by the first job's task on the same machine ending
+     * at its start.
+     *
+     * A schedule does not record the order of the machines, so the machine predecessor is searched among all the
+     * tasks of the machine and this runs in O(numJobs * path length). The solvers rather use
+     * ResourceOrder.criticalPath(), which follows the binding tasks recorded by the decoder in O(path length).
+     * Both give the same path when the schedule is the decoding of the resource order, except when several tasks
+     * of a machine end at the start of a task, which requires tasks without duration: this method then takes the
+     * one of the first job, and ResourceOrder.criticalPath() the previous task in the order of the machine. */
     public List<Task> criticalPath() {
         // select task with greatest end time
-        Task ldd = IntStream.range(0, pb.numJobs)
-                .mapToObj(j -> new Task(j, pb.numTasks-1))
-                .max(Comparator.comparing(this::endTime))
-                .get();
-        assert endTime(ldd) == makespan();
+        int lastJob = 0;
+        for(int j = 1 ; j < pb.numJobs ; j++) {
+            if(endTime(j, pb.numTasks-1) > endTime(lastJob, pb.numTasks-1))
+                lastJob = j;
+        }
+        assert endTime(lastJob, pb.numTasks-1) == makespan();
 
         // list that will contain the critical path.
         // we construct it from the end, starting with the
-        // task that finishes last
-        LinkedList<Task> path = new LinkedList<>();
-        path.add(0,ldd);
+        // task that finishes last, and reverse it at the end
+        ArrayList<Task> path = new ArrayList<>();
+        int job = lastJob;
+        int task = pb.numTasks-1;
+        path.add(pb.task(pb.op(job, task)));
 
         // keep adding tasks to the path until the first task in the path
         // starts a time 0
-        while(startTime(path.getFirst()) != 0) {
-            Task cur = path.getFirst();
-            int machine = pb.machine(cur.job, cur.task);
+        while(startTime(job, task) != 0) {
+            int start = startTime(job, task);
+            int machine = pb.machine(job, task);
 
-            // will contain the task that was delaying the start
-            // of our current task
-            Optional<Task> latestPredecessor = Optional.empty();
-
-            if(cur.task > 0) {
-                // our current task has a predecessor on the job
-                Task predOnJob = new Task(cur.job, cur.task -1);
-
-                // if it was the delaying task, save it to predecessor
-                if(endTime(predOnJob) == startTime(cur))
-                    latestPredecessor = Optional.of(predOnJob);
-            }
-            if(!latestPredecessor.isPresent()) {
+            // task that was delaying the start of our current task, first on the job
+            int predJob = -1;
+            int predTask = -1;
+            if(task > 0 && endTime(job, task-1) == start) {
+                predJob = job;
+                predTask = task-1;
+            } else {
                 // no latest predecessor found yet, look among tasks executing on the same machine
-                latestPredecessor = IntStream.range(0, pb.numJobs)
-                        .mapToObj(j -> new Task(j, pb.task_with_machine(j, machine)))
-                        .filter(t -> endTime(t) == startTime(cur))
-                        .findFirst();
+                for(int j = 0 ; j < pb.numJobs ; j++) {
+                    int t = pb.task_with_machine(j, machine);
+                    if(endTime(j, t) == start) {
+                        predJob = j;
+                        predTask = t;
+                        break;
+                    }
+                }
             }
             // at this point we should have identified a latest predecessor, either on the job or on the machine
-            assert latestPredecessor.isPresent() && endTime(latestPredecessor.get()) == startTime(cur);
-            // insert predecessor at the beginning of the path
-            path.add(0, latestPredecessor.get());
+            assert predJob != -1;
+            job = predJob;
+            task = predTask;
+            path.add(pb.task(pb.op(job, task)));
         }
+        Collections.reverse(path);
         assert isCriticalPath(path);
         return path;
     }
 
+    private int endTime(int job, int task) {
+        return times[job][task] + pb.duration(job, task);
+    }
+
     @Override
     public String toString() {
-        String result = "";
+        StringBuilder result = new StringBuilder();
         for (int j = 0; j < pb.numJobs; j++){
-            result += ("Job n" + j + "\n");
+            result.append("Job n").append(j).append('\n');
             for (int i = 0; i < pb.numTasks; i++){
-                result += ("Tache n" + i + ", debut : " + times[j][i] + "\n");
+                result.append("Tache n").append(i).append(", debut : ").append(times[j][i]).append('\n');
             }
-            result += "\n";
+            result.append('\n');
         }
-        return result;
+        return result.toString();
     }
 }
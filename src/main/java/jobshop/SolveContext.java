@@ -0,0 +1,201 @@
+package jobshop;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/** Parameters and shared state of one call to a solver.
+ *
+ * Solvers publish every new incumbent (best schedule found so far) to the context, which forwards the improving ones
+ * to an optional listener with the time elapsed since the beginning of the solve. The context also tells solvers
+ * when to stop: at the deadline, as soon as an incumbent reaches the target makespan if there is one or the lower
+ * bound of the instance (it is then optimal), or when the solve is cancelled, either by cancel() or by interrupting
+ * the thread that checks shouldStop().
+ * The deadline is converted once to System.nanoTime(), so that time checks are monotonic.
+ * Solvers count their work in `counters`, returned with their result by result().
+ * A context can be shared by solvers running on several threads.
+ */
+public class SolveContext {
+
+    /** Receives the incumbents of a solve, in order of decreasing makespan. */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param elapsedMs time since the beginning of the solve, in milliseconds
+         * @param makespan makespan of the new incumbent
+         * @param schedule the new incumbent
+         */
+        void improved(long elapsedMs, int makespan, Schedule schedule);
+    }
+
+    /** no target makespan: the solve lasts until the deadline */
+    public static final int NO_TARGET = -1;
+
+    /** solvers stop when less than this time is left before the deadline */
+    private static final long STOP_MARGIN_NANOS = 1_000_000;
+    /** longest budget, so that nanoTime differences never overflow */
+    private static final long MAX_BUDGET_NANOS = Long.MAX_VALUE / 4;
+
+    public final Instance instance;
+    /** time at which the solver must return, as given by System.currentTimeMillis() */
+    public final long deadline;
+    /** the solve may stop as soon as an incumbent has a makespan lower or equal to this one, NO_TARGET if none */
+    public final int targetMakespan;
+    /** work done by the solvers using this context */
+    public final Counters counters = new Counters();
+
+    private final Listener listener;
+    private final long startNanos;
+    /** deadline on the scale of System.nanoTime() */
+    private final long deadlineNanos;
+    private volatile int bestMakespan = Integer.MAX_VALUE;
+    /** time at which the best schedule was published, on the scale of System.nanoTime() */
+    private volatile long bestNanos;
+    private volatile boolean cancelled = false;
+    /** thread that created the context, whose allocations are counted by result() */
+    private final Thread owner = Thread.currentThread();
+    private final long ownerAllocatedAtStart = Counters.threadAllocatedBytes();
+
+    public SolveContext(Instance instance, long deadline) {
+        this(instance, deadline, NO_TARGET, null);
+    }
+
+    /**
+     * @param targetMakespan makespan at which the solve may stop, NO_TARGET to run until the deadline
+     * @param listener receives the incumbents, may be null
+     */
+    public SolveContext(Instance instance, long deadline, int targetMakespan, Listener listener) {
+        this(budgetNanos(deadline - System.currentTimeMillis()), instance, targetMakespan, listener);
+    }
+
+    private SolveContext(long budgetNanos, Instance instance, int targetMakespan, Listener listener) {
+        this.instance = instance;
+        // after the initialization of the fields, which may load the management classes
+        this.startNanos = System.nanoTime();
+        this.deadlineNanos = startNanos + budgetNanos;
+        this.deadline = System.currentTimeMillis() + budgetNanos / 1_000_000;
+        this.targetMakespan = targetMakespan;
+        this.listener = listener;
+    }
+
+    /** Context of a solve that may last budgetNanos nanoseconds from now. */
+    public static SolveContext withBudget(Instance instance, long budgetNanos, int targetMakespan, Listener listener) {
+        return new SolveContext(Math.min(budgetNanos, MAX_BUDGET_NANOS), instance, targetMakespan, listener);
+    }
+
+    private static long budgetNanos(long budgetMs) {
+        return budgetMs >= MAX_BUDGET_NANOS / 1_000_000 ? MAX_BUDGET_NANOS : budgetMs * 1_000_000;
+    }
+
+    /** Deadline of the solve, on the scale of System.nanoTime(). */
+    public long deadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /** Time left before the deadline, in nanoseconds, negative once it is passed. */
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /** Makespan of the best schedule published so far, Integer.MAX_VALUE if none. */
+    public int bestMakespan() {
+        return bestMakespan;
+    }
+
+    /** Publishes a schedule found by the solver. Returns true if it improves on all the schedules published
+     * so far, in which case it is forwarded to the listener. */
+    public boolean publish(Schedule schedule) {
+        int makespan = schedule.makespan();
+        if(makespan >= bestMakespan)
+            return false;
+        synchronized (this) {
+            if(makespan >= bestMakespan)
+                return false;
+            bestMakespan = makespan;
+            bestNanos = System.nanoTime();
+            if(listener != null)
+                listener.improved((bestNanos - startNanos) / 1_000_000, makespan, schedule);
+            return true;
+        }
+    }
+
+    /** Result of a solver using this context, with the current value of its counters. */
+    public Result result(Schedule schedule, Result.ExitCause cause) {
+        return new Result(instance, schedule, cause, stats());
+    }
+
+    /** Current value of the counters. The allocations of the thread that created the context are included when
+     * called from that thread, those of the helper threads when they reported them. */
+    public SolveStats stats() {
+        long allocated = -1;
+        if(ownerAllocatedAtStart >= 0) {
+            allocated = counters.allocatedBytes.sum();
+            if(Thread.currentThread() == owner)
+                allocated += Counters.threadAllocatedBytes() - ownerAllocatedAtStart;
+        }
+        return new SolveStats(counters.iterations.sum(), counters.neighbors.sum(), counters.decodes.sum(),
+                counters.infeasibleMoves.sum(), counters.criticalPaths.sum(),
+                bestMakespan == Integer.MAX_VALUE ? -1 : (bestNanos - startNanos) / 1_000_000, allocated);
+    }
+
+    /** True if a published schedule reaches the target makespan. */
+    public boolean targetReached() {
+        return targetMakespan != NO_TARGET && bestMakespan <= targetMakespan;
+    }
+
+    /** True if a published schedule reaches the lower bound of the instance, and is therefore optimal.
+     * The bound is only computed once a schedule is published, outside of publish(), and once per instance. */
+    public boolean provedOptimal() {
+        int best = bestMakespan;
+        return best != Integer.MAX_VALUE && best <= instance.lowerBound();
+    }
+
+    /** Asks the solvers using this context to stop at their next check. They still return their best schedule. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** True if the solver must stop: the deadline is (almost) reached, the target makespan or the lower bound is
+     * reached or the solve is cancelled. If the current thread is interrupted, the whole solve is cancelled. */
+    public boolean shouldStop() {
+        if(cancelled)
+            return true;
+        if(Thread.currentThread().isInterrupted()) {
+            cancelled = true;
+            return true;
+        }
+        return deadlineNanos - System.nanoTime() <= STOP_MARGIN_NANOS || targetReached() || provedOptimal();
+    }
+
+    /** Exit cause of a solver that stopped because of shouldStop(). */
+    public Result.ExitCause stopCause() {
+        if(provedOptimal())
+            return Result.ExitCause.ProvedOptimal;
+        if(targetReached())
+            return Result.ExitCause.TargetReached;
+        return cancelled ? Result.ExitCause.Cancelled : Result.ExitCause.Timeout;
+    }
+
+    /** Waits for a task working on this solve. If the current thread is interrupted meanwhile, the solve is cancelled
+     * and the wait goes on, the task being expected to stop at its next check. The interrupt status is restored
+     * before returning. */
+    public <T> T await(Future<T> task) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while(true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    cancel();
+                }
+            }
+        } finally {
+            if(interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package jobshop;
+
+/** Counters of a finished solve, attached to its Result. See Counters for the meaning of each value. */
+public class SolveStats {
+
+    /** Header of the CSV lines of toCsv(). */
+    public static final String CSV_HEADER =
+            "iterations,neighbors,decodes,infeasible_moves,critical_paths,time_to_best_ms,allocated_bytes";
+
+    public final long iterations;
+    public final long neighbors;
+    public final long decodes;
+    public final long infeasibleMoves;
+    public final long criticalPaths;
+    /** time between the beginning of the solve and the publication of its best schedule, -1 if none was published */
+    public final long timeToBestMs;
+    /** bytes allocated by the threads of the solve, -1 if the JVM does not measure it */
+    public final long allocatedBytes;
+
+    public SolveStats(long iterations, long neighbors, long decodes, long infeasibleMoves, long criticalPaths,
+                      long timeToBestMs, long allocatedBytes) {
+        this.iterations = iterations;
+        this.neighbors = neighbors;
+        this.decodes = decodes;
+        this.infeasibleMoves = infeasibleMoves;
+        this.criticalPaths = criticalPaths;
+        this.timeToBestMs = timeToBestMs;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /** Values in the order of CSV_HEADER. */
+    public String toCsv() {
+        return iterations + "," + neighbors + "," + decodes + "," + infeasibleMoves + "," + criticalPaths + ","
+                + timeToBestMs + "," + allocatedBytes;
+    }
+
+    /** Members of a JSON object, without the braces, so that other members can be added. */
+    public String toJsonMembers() {
+        return "\"iterations\": " + iterations + ", \"neighbors\": " + neighbors + ", \"decodes\": " + decodes
+                + ", \"infeasible_moves\": " + infeasibleMoves + ", \"critical_paths\": " + criticalPaths
+                + ", \"time_to_best_ms\": " + timeToBestMs + ", \"allocated_bytes\": " + allocatedBytes;
+    }
+}
@@ -2,6 +2,16 @@ package jobshop;
 
 public interface Solver {
 
-    Result solve(Instance instance, long deadline);
+    /** Solves the instance until the deadline, given as by System.currentTimeMillis(). */
+    default Result solve(Instance instance, long deadline) {
+        return solve(new SolveContext(instance, deadline));
+    }
+
+    /** Solves context.instance, publishing every new incumbent to the context as soon as it is found,
+     * and returns when context.shouldStop() becomes true, or earlier if the solver has nothing left to do.
+     *
+     * The state of a call is kept in the context and in objects local to the call, never in the solver, whose fields
+     * only hold its configuration: a solver can run any number of concurrent calls, on the same instance or not. */
+    Result solve(SolveContext context);
 
 }
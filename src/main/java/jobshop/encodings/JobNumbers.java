@@ -29,29 +29,45 @@ public class JobNumbers extends Encoding {
 
     @Override
     public Schedule toSchedule() {
-        // time at which each machine is going to be freed
-        int[] nextFreeTimeResource = new int[instance.numMachines];
-
-        // for each job, the first task that has not yet been scheduled
-        int[] nextTask = new int[instance.numJobs];
+        int[] start = new int[instance.numJobs * instance.numTasks];
+        decode(start, new int[instance.numJobs], new int[instance.numMachines]);
 
         // for each task, its start time
         int[][] startTimes = new int[instance.numJobs][instance.numTasks];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            System.arraycopy(start, j * instance.numTasks, startTimes[j], 0, instance.numTasks);
+        }
+        return new Schedule(instance, startTimes);
+    }
 
+    /** Computes the earliest start time of every task and returns the makespan, without allocating anything.
+     *
+     * startTimes[instance.op(job, task)] receives the start time of the task and must have numJobs * numTasks
+     * elements. nextTask (numJobs elements) and nextFreeTimeResource (numMachines elements) are scratch buffers,
+     * overwritten by the call, so that the same buffers can be reused to evaluate many solutions.
+     */
+    public int decode(int[] startTimes, int[] nextTask, int[] nextFreeTimeResource) {
+        // time at which each machine is going to be freed
+        Arrays.fill(nextFreeTimeResource, 0);
+        // for each job, the first task that has not yet been scheduled
+        Arrays.fill(nextTask, 0);
+
+        int makespan = 0;
         // compute the earliest start time for every task of every job
         for(int job : jobs) {
             int task = nextTask[job];
-            int machine = instance.machine(job, task);
+            int op = job * instance.numTasks + task;
+            int machine = instance.machines[op];
             // earliest start time for this task
-            int est = task == 0 ? 0 : startTimes[job][task-1] + instance.duration(job, task-1);
+            int est = task == 0 ? 0 : startTimes[op-1] + instance.durations[op-1];
             est = Math.max(est, nextFreeTimeResource[machine]);
 
-            startTimes[job][task] = est;
-            nextFreeTimeResource[machine] = est + instance.duration(job, task);
+            startTimes[op] = est;
+            nextFreeTimeResource[machine] = est + instance.durations[op];
+            makespan = Math.max(makespan, nextFreeTimeResource[machine]);
             nextTask[job] = task + 1;
         }
-
-        return new Schedule(instance, startTimes);
+        return makespan;
     }
 
     @Override
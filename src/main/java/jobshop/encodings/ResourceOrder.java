@@ -4,26 +4,52 @@ import jobshop.Encoding;
 import jobshop.Instance;
 import jobshop.Schedule;
 
-import java.lang.reflect.Array;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Optional;
-import java.util.stream.IntStream;
 
 public class ResourceOrder extends Encoding {
-    public Task[][] matrixTask;
+    /** For each machine, the tasks executing on it in order. A task is identified by its index
+     * in the row-major arrays of the instance (Instance.op), -1 marks a slot that has not been set yet.
+     * Only modified through the methods of this class (addTask, setTasks, swap, move...), which keep the
+     * position of every task up to date. */
+    public final int[][] tasksByMachine;
     // for each machine, indicate on many tasks have been initialized
     public final int[] nextFreeSlot;
+    /** For each task (Instance.op), its index in the order of its machine, -1 if it has not been set yet. */
+    private final int[] position;
+
+    /** Working arrays of decode(), which can be reused by the decodings of all the resource orders of an instance
+     * done by one thread, so that decoding does not allocate. */
+    public static final class DecodeBuffers {
+        // for each job, how many tasks have been scheduled
+        final int[] nextToScheduleByJob;
+        // for each machine, how many tasks have been scheduled
+        final int[] nextToScheduleByMachine;
+        // for each machine, earliest time at which the machine can be used
+        final int[] releaseTimeOfMachine;
+        // machines whose next task can be scheduled
+        final int[] schedulable;
+
+        public DecodeBuffers(Instance instance) {
+            nextToScheduleByJob = new int[instance.numJobs];
+            nextToScheduleByMachine = new int[instance.numMachines];
+            releaseTimeOfMachine = new int[instance.numMachines];
+            schedulable = new int[instance.numMachines];
+        }
+    }
 
     public ResourceOrder(Instance instance){
         super(instance);
 
-        // matrix of null elements (null is the default value of objects)
-        matrixTask = new Task[instance.numMachines][instance.numJobs];
+        // no task on any machine
+        tasksByMachine = new int[instance.numMachines][instance.numJobs];
+        for(int[] tasks : tasksByMachine) {
+            Arrays.fill(tasks, -1);
+        }
 
         // no task scheduled on any machine (0 is the default value)
         nextFreeSlot = new int[instance.numMachines];
+        position = new int[instance.numJobs * instance.numTasks];
+        Arrays.fill(position, -1);
     }
 
     /** Creates a resource order from a schedule. */
@@ -32,80 +58,233 @@ public class ResourceOrder extends Encoding {
         super(schedule.pb);
         Instance pb = schedule.pb;
 
-        this.matrixTask = new Task[pb.numMachines][];
+        this.tasksByMachine = new int[pb.numMachines][pb.numJobs];
         this.nextFreeSlot = new int[instance.numMachines];
+        this.position = new int[pb.numJobs * pb.numTasks];
 
+        // (start time, job) pairs packed in a long, so that sorting them orders the jobs by start time
+        long[] keys = new long[pb.numJobs];
         for(int m = 0 ; m<schedule.pb.numMachines ; m++) {
-            final int machine = m;
-
-            // for thi machine, find all tasks that are executed on it and sort them by their start time
-            matrixTask[m] =
-                    IntStream.range(0, pb.numJobs) // all job numbers
-                            .mapToObj(j -> new Task(j, pb.task_with_machine(j, machine))) // all tasks on this machine (one per job)
-                            .sorted(Comparator.comparing(t -> schedule.startTime(t.job, t.task))) // sorted by start time
-                            .toArray(Task[]::new); // as new array and store in tasksByMachine
+            // for this machine, find all tasks that are executed on it and sort them by their start time
+            for(int j = 0 ; j < pb.numJobs ; j++) {
+                keys[j] = ((long) schedule.startTime(j, pb.task_with_machine(j, m)) << 32) | j;
+            }
+            Arrays.sort(keys);
+            for(int i = 0 ; i < pb.numJobs ; i++) {
+                int j = (int) keys[i];
+                tasksByMachine[m][i] = pb.op(j, pb.task_with_machine(j, m));
+                position[tasksByMachine[m][i]] = i;
+            }
 
             // indicate that all tasks have been initialized for machine m
             nextFreeSlot[m] = instance.numJobs;
         }
     }
 
+    /** Appends the task (job, task) after the tasks already set on its machine. */
+    public void addTask(int job, int task) {
+        int machine = instance.machine(job, task);
+        position[instance.op(job, task)] = nextFreeSlot[machine];
+        tasksByMachine[machine][nextFreeSlot[machine]++] = instance.op(job, task);
+    }
+
+    /** Sets the whole order of the machine, from the numJobs tasks of `tasks` starting at index `from`. */
+    public void setTasks(int machine, int[] tasks, int from) {
+        System.arraycopy(tasks, from, tasksByMachine[machine], 0, instance.numJobs);
+        for(int i = 0 ; i < instance.numJobs ; i++) {
+            position[tasksByMachine[machine][i]] = i;
+        }
+        nextFreeSlot[machine] = instance.numJobs;
+    }
+
+    /** Index of the task (Instance.op) in the order of its machine, -1 if it has not been set yet. O(1). */
+    public int position(int op) {
+        return position[op];
+    }
+
+    /** Returns the task at the given position on the machine, null if this slot has not been set yet. */
+    public Task getTask(int machine, int index) {
+        int op = tasksByMachine[machine][index];
+        if(op == -1)
+            return null;
+        return instance.task(op);
+    }
+
+    /** Exchanges the tasks at positions i and j of the machine. Swapping them again restores the previous order. */
+    public void swap(int machine, int i, int j) {
+        int[] tasks = tasksByMachine[machine];
+        int tmp = tasks[i];
+        tasks[i] = tasks[j];
+        tasks[j] = tmp;
+        position[tasks[i]] = i;
+        position[tasks[j]] = j;
+    }
+
+    /** Moves the task at position `from` of the machine to position `to`, shifting the tasks in between.
+     * The move is undone by move(machine, to, from). */
+    public void move(int machine, int from, int to) {
+        int[] tasks = tasksByMachine[machine];
+        int moved = tasks[from];
+        if(from < to) {
+            System.arraycopy(tasks, from + 1, tasks, from, to - from);
+        } else {
+            System.arraycopy(tasks, to, tasks, to + 1, from - to);
+        }
+        tasks[to] = moved;
+        for(int k = Math.min(from, to) ; k <= Math.max(from, to) ; k++) {
+            position[tasks[k]] = k;
+        }
+    }
+
     @Override
     public Schedule toSchedule() {
+        int[] start = new int[instance.numJobs * instance.numTasks];
+        if(!decode(start, new int[start.length])) {
+            // no tasks are schedulable, there is no solution for this resource ordering
+            return null;
+        }
+
         // indicate for each task that have been scheduled, its start time
         int [][] startTimes = new int [instance.numJobs][instance.numTasks];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            System.arraycopy(start, j * instance.numTasks, startTimes[j], 0, instance.numTasks);
+        }
+        return new Schedule(instance, startTimes);
+    }
+
+    /** Computes the earliest start time of every task, following a topological order of the tasks (Kahn's algorithm).
+     *
+     * Tasks are identified by their index in the row-major arrays of the instance (Instance.op).
+     * startTimes[instance.op(job, task)] receives the start time of the task, and topoOrder the tasks in the order
+     * they were scheduled. Both arrays must have numJobs * numTasks elements.
+     * Runs in O(numJobs * numTasks) and returns false if the resource order contains a cyclic dependency.
+     */
+    public boolean decode(int[] startTimes, int[] topoOrder) {
+        return decode(startTimes, topoOrder, null);
+    }
+
+    /** Same as decode(startTimes, topoOrder), also recording in binding[op] the task whose end fixes the start of op:
+     * its predecessor in its job if it ends at the start of op, otherwise its predecessor on its machine, -1 if op
+     * starts at 0. binding may be null, otherwise it must have numJobs * numTasks elements.
+     * Following the binding tasks from a task ending at the makespan gives a critical path (see criticalPath).
+     */
+    public boolean decode(int[] startTimes, int[] topoOrder, int[] binding) {
+        return decode(startTimes, topoOrder, binding, new DecodeBuffers(instance));
+    }
+
+    /** Same as decode(startTimes, topoOrder, binding), with working arrays allocated once by the caller. */
+    public boolean decode(int[] startTimes, int[] topoOrder, int[] binding, DecodeBuffers buffers) {
+        final int numTasks = instance.numTasks;
 
         // for each job, how many tasks have been scheduled (0 initially)
-        int[] nextToScheduleByJob = new int[instance.numJobs];
+        int[] nextToScheduleByJob = buffers.nextToScheduleByJob;
+        Arrays.fill(nextToScheduleByJob, 0);
 
         // for each machine, how many tasks have been scheduled (0 initially)
-        int[] nextToScheduleByMachine = new int[instance.numMachines];
+        int[] nextToScheduleByMachine = buffers.nextToScheduleByMachine;
+        Arrays.fill(nextToScheduleByMachine, 0);
 
         // for each machine, earliest time at which the machine can be used
-        int[] releaseTimeOfMachine = new int[instance.numMachines];
-
-
-        // loop while there remains a job that has unscheduled tasks
-        while(IntStream.range(0, instance.numJobs).anyMatch(m -> nextToScheduleByJob[m] < instance.numTasks)) {
-
-            // selects a task that has noun scheduled predecessor on its job and machine :
-            //  - it is the next to be schedule on a machine
-            //  - it is the next to be scheduled on its job
-            // if there is no such task, we have cyclic dependency and the solution is invalid
-            Optional<Task> schedulable =
-                    IntStream.range(0, instance.numMachines) // all machines ...
-                            .filter(m -> nextToScheduleByMachine[m] < instance.numJobs) // ... with unscheduled jobs
-                            .mapToObj(m -> this.matrixTask[m][nextToScheduleByMachine[m]]) // tasks that are next to schedule on a machine ...
-                            .filter(task -> task.task == nextToScheduleByJob[task.job])  // ... and on their job
-                            .findFirst(); // select the first one if any
-
-            if(schedulable.isPresent()) {
-                // we found a schedulable task, lets call it t
-                Task t = schedulable.get();
-                int machine = instance.machine(t.job, t.task);
-
-                // compute the earliest start time (est) of the task
-                int est = t.task == 0 ? 0 : startTimes[t.job][t.task-1] + instance.duration(t.job, t.task-1);
-                est = Math.max(est, releaseTimeOfMachine[machine]);
-                startTimes[t.job][t.task] = est;
-
-                // mark the task as scheduled
-                nextToScheduleByJob[t.job]++;
-                nextToScheduleByMachine[machine]++;
-                // increase the release time of the machine
-                releaseTimeOfMachine[machine] = est + instance.duration(t.job, t.task);
-            } else {
-                // no tasks are schedulable, there is no solution for this resource ordering
-                return null;
+        int[] releaseTimeOfMachine = buffers.releaseTimeOfMachine;
+        Arrays.fill(releaseTimeOfMachine, 0);
+
+        // machines whose next task is also the next one of its job, i.e. has no unscheduled predecessor.
+        // A task is pushed exactly once, when its last predecessor gets scheduled, and there is at most one
+        // such task per machine.
+        int[] schedulable = buffers.schedulable;
+        int numSchedulable = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            if(tasksByMachine[m][0] % numTasks == 0)
+                schedulable[numSchedulable++] = m;
+        }
+
+        int numScheduled = 0;
+        while(numSchedulable > 0) {
+            // we found a schedulable task, lets call it op
+            int machine = schedulable[--numSchedulable];
+            int op = tasksByMachine[machine][nextToScheduleByMachine[machine]];
+            int job = op / numTasks;
+            int task = op % numTasks;
+
+            // compute the earliest start time (est) of the task
+            int est = task == 0 ? 0 : startTimes[op-1] + instance.durations[op-1];
+            est = Math.max(est, releaseTimeOfMachine[machine]);
+            startTimes[op] = est;
+            topoOrder[numScheduled++] = op;
+            if(binding != null) {
+                if(est == 0)
+                    binding[op] = -1;
+                else if(task > 0 && startTimes[op-1] + instance.durations[op-1] == est)
+                    binding[op] = op - 1;
+                else
+                    binding[op] = tasksByMachine[machine][nextToScheduleByMachine[machine] - 1];
+            }
+
+            // mark the task as scheduled
+            nextToScheduleByJob[job]++;
+            nextToScheduleByMachine[machine]++;
+            // increase the release time of the machine
+            releaseTimeOfMachine[machine] = est + instance.durations[op];
+
+            // the next task of the job may now be schedulable ...
+            if(task + 1 < numTasks) {
+                int m = instance.machines[op + 1];
+                if(nextToScheduleByMachine[m] < instance.numJobs && tasksByMachine[m][nextToScheduleByMachine[m]] == op + 1)
+                    schedulable[numSchedulable++] = m;
+            }
+            // ... as well as the next task on the machine
+            if(nextToScheduleByMachine[machine] < instance.numJobs) {
+                int next = tasksByMachine[machine][nextToScheduleByMachine[machine]];
+                if(next % numTasks == nextToScheduleByJob[next / numTasks])
+                    schedulable[numSchedulable++] = machine;
             }
         }
-        // we exited the loop : all tasks have been scheduled successfully
-        return new Schedule(instance, startTimes);
+        // if some tasks could not be scheduled, we have a cyclic dependency and the solution is invalid
+        return numScheduled == instance.numJobs * numTasks;
+    }
+
+    /** Writes in path the tasks of a critical path and returns its length, from start times and binding tasks
+     * computed by decode(startTimes, topoOrder, binding). The path ends with the first job ending at the makespan
+     * and goes through the predecessor in the job when both predecessors are binding, otherwise through the previous
+     * task on the machine. Schedule.criticalPath() gives the same path, except when tasks without duration end at
+     * the start of a task of their machine (see there).
+     * Runs in O(numJobs + path length).
+     */
+    public int criticalPath(int[] startTimes, int[] binding, int[] path) {
+        int last = -1;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int op = instance.op(j, instance.numTasks - 1);
+            if(last == -1 || startTimes[op] + instance.durations[op] > startTimes[last] + instance.durations[last])
+                last = op;
+        }
+        // from the end, then reversed
+        int length = 0;
+        for(int op = last ; op != -1 ; op = binding[op]) {
+            path[length++] = op;
+        }
+        for(int i = 0, k = length - 1 ; i < k ; i++, k--) {
+            int tmp = path[i];
+            path[i] = path[k];
+            path[k] = tmp;
+        }
+        return length;
     }
 
     /** Creates an exact copy of this resource order. */
     public ResourceOrder copy() {
-        return new ResourceOrder(this.toSchedule());
+        ResourceOrder copy = new ResourceOrder(instance);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /** Overwrites this resource order with the content of another one on the same instance, without allocating. */
+    public void copyFrom(ResourceOrder other) {
+        assert other.instance == instance;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            System.arraycopy(other.tasksByMachine[m], 0, tasksByMachine[m], 0, instance.numJobs);
+        }
+        System.arraycopy(other.nextFreeSlot, 0, nextFreeSlot, 0, instance.numMachines);
+        System.arraycopy(other.position, 0, position, 0, position.length);
     }
 
     @Override
@@ -114,7 +293,7 @@ public class ResourceOrder extends Encoding {
         for(int m =0; m < instance.numMachines; m++){
             result += ("Machine " + m + " : ");
             for(int j=0; j < instance.numJobs; j++){
-                result += (matrixTask[m][j] + " ");
+                result += (getTask(m, j) + " ");
             }
             result += "\n";
         }
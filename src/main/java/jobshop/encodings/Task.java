@@ -1,10 +1,10 @@
 package jobshop.encodings;
 
-import java.util.Objects;
-
 /** Represents a task (job,task) of an jobshop problem.
  *
  * Example : (2, 3) repesents the fourth task of the third job. (remeber that we tart counting at 0)
+ *
+ * Instance.task(op) gives a shared Task object for each task of an instance, to avoid allocating new ones.
  * */
 public final class Task {
 
@@ -31,7 +31,7 @@ public final class Task {
 
     @Override
     public int hashCode() {
-        return Objects.hash(job, task);
+        return 31 * job + task;
     }
 
     @Override
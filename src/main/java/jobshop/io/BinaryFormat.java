@@ -0,0 +1,139 @@
+package jobshop.io;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import jobshop.encodings.ResourceOrder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** Binary files for instances and solutions.
+ *
+ * All the values are 32 bits big-endian integers. A file starts with a magic number and a format version:
+ * <pre>
+ * instance: "JSPI" version numJobs numTasks machines[numJobs*numTasks] durations[numJobs*numTasks]
+ * solution: "JSPS" version numJobs numTasks tasksByMachine[numMachines*numJobs] startTimes[numJobs*numTasks]
+ * </pre>
+ * Arrays indexed by task are in row-major order (Instance.op), and the order of each machine lists the op of its
+ * tasks. Files are read through a MappedByteBuffer, from which the arrays are copied in bulk.
+ */
+public final class BinaryFormat {
+
+    /** "JSPI" */
+    static final int INSTANCE_MAGIC = 0x4A535049;
+    /** "JSPS" */
+    static final int SOLUTION_MAGIC = 0x4A535053;
+    /** version written by this class, and the only one it can read */
+    public static final int VERSION = 1;
+
+    private static final int HEADER_INTS = 4;
+
+    private BinaryFormat() {}
+
+    public static void writeInstance(Instance instance, Path path) throws IOException {
+        int size = instance.numJobs * instance.numTasks;
+        IntBuffer out = IntBuffer.allocate(HEADER_INTS + 2 * size);
+        out.put(INSTANCE_MAGIC).put(VERSION).put(instance.numJobs).put(instance.numTasks);
+        out.put(instance.machines).put(instance.durations);
+        write(out.array(), path);
+    }
+
+    public static Instance readInstance(Path path) throws IOException {
+        IntBuffer in = map(path);
+        readHeader(in, INSTANCE_MAGIC, path);
+        int numJobs = in.get();
+        int numTasks = in.get();
+        checkRemaining(in, 2L * numJobs * numTasks, path);
+        int[] machines = new int[numJobs * numTasks];
+        int[] durations = new int[numJobs * numTasks];
+        in.get(machines).get(durations);
+        return new Instance(numJobs, numTasks, machines, durations);
+    }
+
+    /** Writes a solution: the order of the tasks on each machine and the start time of each task. */
+    public static void writeSolution(ResourceOrder order, Schedule schedule, Path path) throws IOException {
+        Instance instance = order.instance;
+        IntBuffer out = IntBuffer.allocate(HEADER_INTS + 2 * instance.numJobs * instance.numTasks);
+        out.put(SOLUTION_MAGIC).put(VERSION).put(instance.numJobs).put(instance.numTasks);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            out.put(order.tasksByMachine[m]);
+        }
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                out.put(schedule.startTime(j, t));
+            }
+        }
+        write(out.array(), path);
+    }
+
+    /** Reads a solution of the given instance. */
+    public static Solution readSolution(Instance instance, Path path) throws IOException {
+        IntBuffer in = map(path);
+        readHeader(in, SOLUTION_MAGIC, path);
+        int numJobs = in.get();
+        int numTasks = in.get();
+        if(numJobs != instance.numJobs || numTasks != instance.numTasks)
+            throw new IOException(path + ": solution of a "+numJobs+"x"+numTasks+" instance, expected "
+                    + instance.numJobs+"x"+instance.numTasks);
+        checkRemaining(in, 2L * numJobs * numTasks, path);
+
+        ResourceOrder order = new ResourceOrder(instance);
+        int[] tasks = new int[numJobs];
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            in.get(tasks);
+            for(int op : tasks) {
+                if(op < 0 || op >= numJobs * numTasks || instance.machines[op] != m)
+                    throw new IOException(path + ": task "+op+" is not a task of machine "+m);
+            }
+            order.setTasks(m, tasks, 0);
+        }
+        int[][] times = new int[numJobs][numTasks];
+        for(int j = 0 ; j < numJobs ; j++) {
+            in.get(times[j]);
+        }
+        return new Solution(order, new Schedule(instance, times));
+    }
+
+    /** Solution read from a file. */
+    public static final class Solution {
+        public final ResourceOrder order;
+        public final Schedule schedule;
+
+        public Solution(ResourceOrder order, Schedule schedule) {
+            this.order = order;
+            this.schedule = schedule;
+        }
+    }
+
+    private static IntBuffer map(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if(channel.size() < 4 * HEADER_INTS)
+                throw new IOException(path + ": file too short");
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+        }
+    }
+
+    private static void readHeader(IntBuffer in, int magic, Path path) throws IOException {
+        if(in.get() != magic)
+            throw new IOException(path + ": not a "+(magic == INSTANCE_MAGIC ? "binary instance" : "binary solution"));
+        int version = in.get();
+        if(version != VERSION)
+            throw new IOException(path + ": unsupported version "+version+", expected "+VERSION);
+    }
+
+    private static void checkRemaining(IntBuffer in, long expected, Path path) throws IOException {
+        if(in.remaining() != expected)
+            throw new IOException(path + ": expected "+expected+" values after the header, found "+in.remaining());
+    }
+
+    private static void write(int[] values, Path path) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(4 * values.length);
+        bytes.asIntBuffer().put(values);
+        Files.write(path, bytes.array());
+    }
+}
@@ -0,0 +1,30 @@
+package jobshop.io;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/** Converts instances between the text format of `instances/` and the binary format.
+ *
+ * Usage: Convert to-binary INPUT OUTPUT
+ *        Convert to-text INPUT OUTPUT
+ */
+public class Convert {
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 3) {
+            System.err.println("usage: Convert (to-binary|to-text) INPUT OUTPUT");
+            System.exit(1);
+        }
+        switch (args[0]) {
+            case "to-binary":
+                BinaryFormat.writeInstance(TextFormat.readInstance(Paths.get(args[1])), Paths.get(args[2]));
+                break;
+            case "to-text":
+                TextFormat.writeInstance(BinaryFormat.readInstance(Paths.get(args[1])), Paths.get(args[2]));
+                break;
+            default:
+                System.err.println("unknown conversion: " + args[0]);
+                System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package jobshop.io;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import jobshop.encodings.ResourceOrder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** Directory keeping the best solution found so far for each instance, so that a search can start from it.
+ *
+ * Solutions are stored in the binary format of BinaryFormat, in a file named after a hash of the content of the
+ * instance (numbers of jobs and tasks, machines and durations): renaming an instance keeps its solution, and
+ * changing it does not reuse a solution of the old content. A file is written to a temporary file then moved in
+ * place atomically, so that readers never see a partially written solution.
+ *
+ * Errors of the file system when storing a solution are reported as UncheckedIOException, so that solvers can use
+ * the store directly. An unreadable stored solution is ignored, so that it does not stop the searches.
+ */
+public class SolutionStore {
+
+    private final Path directory;
+
+    public SolutionStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /** Hexadecimal SHA-256 of the content of the instance. */
+    public static String key(Instance instance) {
+        ByteBuffer content = ByteBuffer.allocate(4 * (2 + 2 * instance.numJobs * instance.numTasks));
+        content.putInt(instance.numJobs).putInt(instance.numTasks);
+        content.asIntBuffer().put(instance.machines).put(instance.durations);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.array());
+            StringBuilder hex = new StringBuilder();
+            for(byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Path file(Instance instance) {
+        return directory.resolve(key(instance) + ".sol");
+    }
+
+    /** Best stored solution of the instance, or null if there is none. A stored solution that cannot be read
+     * (truncated or corrupt file) or is not a valid solution of the instance is reported on the standard error and
+     * treated as absent, so that the next offer() replaces it. */
+    public ResourceOrder load(Instance instance) {
+        Path file = file(instance);
+        if(!Files.exists(file))
+            return null;
+        try {
+            ResourceOrder order = BinaryFormat.readSolution(instance, file).order;
+            if(!isPermutation(instance, order) || order.toSchedule() == null)
+                throw new IOException(file + ": the stored order is not a valid solution of the instance");
+            return order;
+        } catch (IOException | RuntimeException e) {
+            // a corrupt file can also make the reader fail on out of range lengths or indices
+            System.err.println("WARNING: ignoring the stored solution " + file + ": " + e);
+            return null;
+        }
+    }
+
+    /** Stores the solution if it is better than the stored one, returns true if it was stored. */
+    public synchronized boolean offer(ResourceOrder order) {
+        Schedule schedule = order.toSchedule();
+        if(schedule == null)
+            throw new IllegalArgumentException("The resource order contains a cycle");
+        ResourceOrder stored = load(order.instance);
+        if(stored != null && stored.toSchedule().makespan() <= schedule.makespan())
+            return false;
+
+        Path file = file(order.instance);
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                BinaryFormat.writeSolution(order, schedule, tmp);
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /** True if each machine holds exactly the tasks of the instance that use it. */
+    private static boolean isPermutation(Instance instance, ResourceOrder order) {
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            boolean[] seen = new boolean[instance.numJobs];
+            for(int op : order.tasksByMachine[m]) {
+                if(op < 0 || op >= instance.numJobs * instance.numTasks || instance.machines[op] != m)
+                    return false;
+                int job = op / instance.numTasks;
+                if(seen[job])
+                    return false;
+                seen[job] = true;
+            }
+        }
+        return true;
+    }
+}
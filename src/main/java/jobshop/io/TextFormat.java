@@ -0,0 +1,39 @@
+package jobshop.io;
+
+import jobshop.Instance;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Text files of the `instances/` directory. Reading is done by Instance.fromFile. */
+public final class TextFormat {
+
+    private TextFormat() {}
+
+    public static Instance readInstance(Path path) throws IOException {
+        return Instance.fromFile(path);
+    }
+
+    /** Writes an instance: a header line with the numbers of jobs and tasks, then one line per job with the machine
+     * and the duration of each of its tasks. */
+    public static void writeInstance(Instance instance, Path path) throws IOException {
+        try(BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            out.write(instance.numJobs + " " + instance.numTasks);
+            out.newLine();
+            StringBuilder line = new StringBuilder();
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                line.setLength(0);
+                for(int t = 0 ; t < instance.numTasks ; t++) {
+                    if(t > 0)
+                        line.append(' ');
+                    line.append(instance.machine(j, t)).append(' ').append(instance.duration(j, t));
+                }
+                out.write(line.toString());
+                out.newLine();
+            }
+        }
+    }
+}
@@ -2,12 +2,15 @@ package jobshop.solvers;
 
 import jobshop.Instance;
 import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.SolveContext;
 import jobshop.Solver;
 import jobshop.encodings.JobNumbers;
 
 public class BasicSolver implements Solver {
     @Override
-    public Result solve(Instance instance, long deadline) {
+    public Result solve(SolveContext context) {
+        Instance instance = context.instance;
 
         JobNumbers sol = new JobNumbers(instance);
         for(int t = 0 ; t<instance.numTasks ; t++) {
@@ -16,6 +19,9 @@ public class BasicSolver implements Solver {
             }
         }
 
-        return new Result(instance, sol.toSchedule(), Result.ExitCause.Blocked);
+        Schedule schedule = sol.toSchedule();
+        context.counters.decodes(1);
+        context.publish(schedule);
+        return context.result(schedule, Result.ExitCause.Blocked);
     }
 }
@@ -0,0 +1,761 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.SolveContext;
+import jobshop.Solver;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.Arrays;
+
+/** Exact solver: depth-first branch and bound over the disjunctive graph, after Brucker, Jurisch and Sievers (1994).
+ *
+ * A node of the tree fixes the order of some pairs of tasks sharing a machine. Its lower bound is the largest
+ * one-machine preemptive (Jackson) bound, computed with the heads and tails of the tasks in the graph of the fixed
+ * arcs. Tasks that cannot be ordered one way without reaching the incumbent are fixed the other way, for pairs of
+ * tasks and for a task and a set of tasks (immediate selection, Carlier and Pinson), which also raises heads and
+ * tails. List schedules respecting the fixed arcs may then improve the incumbent, and the node is split on the
+ * blocks of the critical path of the best one: a better schedule must move a task of some block before or after
+ * all the other tasks of the block, the blocks before it keeping their first and last tasks. The children are
+ * explored by increasing lower bound.
+ *
+ * The tree is explored with an explicit stack of children, each one being a list of arcs to add to its parent.
+ * The fixed arcs are bit sets per task, and a trail of their previous values undoes them when backtracking.
+ * The incumbent starts from a greedy solution, and short searches for a schedule reaching the lower bound come
+ * before the complete one. The solver returns ProvedOptimal once the tree is exhausted, its incumbent otherwise.
+ */
+public class BranchAndBoundSolver implements Solver {
+
+    @Override
+    public Result solve(SolveContext context) {
+        Schedule greedy = new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(context).schedule;
+        Search search = new Search(context, new ResourceOrder(greedy), greedy.makespan());
+        boolean exhausted = search.run();
+        Schedule best = search.best.toSchedule();
+        return context.result(best, exhausted ? Result.ExitCause.ProvedOptimal : context.stopCause());
+    }
+
+    /** number of priority rules of the list schedules */
+    private static final int RULES = 3;
+
+    /** nodes of a search for a schedule reaching the lower bound, per task of the instance */
+    private static final int PROBE_NODES_PER_TASK = 10;
+
+    // end of an exploration of the tree
+    private static final int EXHAUSTED = 0;
+    private static final int STOPPED = 1;
+    private static final int NODE_LIMIT = 2;
+
+    /** State of one exploration, allocated by each call to solve(). */
+    private static class Search {
+
+        private final SolveContext context;
+        private final int numJobs;
+        private final int numTasks;
+        private final int numMachines;
+        private final int numOps;
+        private final int[] durations;
+        private final int[] machines;
+        /** task of each job on each machine, at index machine * numJobs + job */
+        private final int[] opOnMachine;
+
+        /** incumbent, and its makespan */
+        final ResourceOrder best;
+        private int upperBound;
+        /** the nodes that cannot contain a schedule with a makespan lower than this one are pruned */
+        private int cutoff;
+        /** makespan below which there is no schedule */
+        private int lowerBound;
+        /** rules of the list schedules */
+        private int firstRule = 0;
+        private int lastRule = RULES - 1;
+        /** set when children were dropped because the context stopped the search */
+        private boolean stopped = false;
+
+        /** number of longs in the bit set of a task */
+        private final int words;
+        /** bit j of the set of task op (words longs from op * words) is set if the task of job j on the same machine
+         * must be executed after op */
+        private final long[] after;
+        /** previous values of the modified words of `after`, with their index */
+        private final int[] trailIndex;
+        private final long[] trailValue;
+        private int trailSize = 0;
+
+        /** children waiting to be explored: trail size of their parent, and their arcs in the arc pool */
+        private int[] childMark = new int[64];
+        private int[] childArcs = new int[64];
+        private int numChildren = 0;
+        /** arcs of the children, from arcFrom[i] to arcTo[i] */
+        private int[] arcFrom = new int[256];
+        private int[] arcTo = new int[256];
+        private int numArcs = 0;
+        /** children of the node being branched, with their arcs in the pool and their lower bound */
+        private int[] candidates = new int[16];
+        private int[] candidateStart = new int[16];
+        private int[] candidateEnd = new int[16];
+        private int[] candidateBound = new int[16];
+        private int[] candidateMakespan = new int[16];
+        private int numCandidates;
+        private int[] scratchFrom = new int[256];
+        private int[] scratchTo = new int[256];
+
+        // heads (longest path from the start) and tails (longest path to the end, without the task) of the tasks
+        private final int[] heads;
+        private final int[] tails;
+        private final int[] topoOrder;
+        private final int[] predecessors;
+        /** lower bound of the current node */
+        private int nodeBound;
+
+        // one-machine bound
+        private final int[] byHead;
+        private final int[] remaining;
+        private final int[] byTail;
+        private final int[] rankByTail;
+        private final int[] byDecreasingHead;
+        /** smallest head and tail of each task in the current node, deduced by immediate selection */
+        private final int[] headFloors;
+        private final int[] tailFloors;
+
+        // list schedule of the current node
+        private final int[] startTimes;
+        private final int[] previousOnMachine;
+        private final int[] sequence;
+        private final int[] sequenceSize;
+        private final int[] nextTask;
+        private final int[] jobEnd;
+        private final int[] machineEnd;
+
+        // critical path of the list schedule, in order, and its blocks
+        private final int[] path;
+        private final int[] blockStart;
+        private int numBlocks;
+
+        Search(SolveContext context, ResourceOrder start, int makespan) {
+            Instance instance = context.instance;
+            this.context = context;
+            this.numJobs = instance.numJobs;
+            this.numTasks = instance.numTasks;
+            this.numMachines = instance.numMachines;
+            this.numOps = numJobs * numTasks;
+            this.durations = instance.durations;
+            this.machines = instance.machines;
+            this.opOnMachine = new int[numMachines * numJobs];
+            for(int m = 0 ; m < numMachines ; m++) {
+                for(int j = 0 ; j < numJobs ; j++) {
+                    opOnMachine[m * numJobs + j] = instance.op(j, instance.task_with_machine(j, m));
+                }
+            }
+            this.best = start.copy();
+            this.upperBound = makespan;
+            this.lowerBound = instance.lowerBound();
+
+            this.words = (numJobs + 63) / 64;
+            this.after = new long[numOps * words];
+            // a bit is set at most once on a branch of the tree
+            this.trailIndex = new int[numOps * numJobs];
+            this.trailValue = new long[numOps * numJobs];
+
+            this.heads = new int[numOps];
+            this.tails = new int[numOps];
+            this.topoOrder = new int[numOps];
+            this.predecessors = new int[numOps];
+            this.byHead = new int[numJobs];
+            this.remaining = new int[numJobs];
+            this.byTail = new int[numJobs];
+            this.rankByTail = new int[numJobs];
+            this.byDecreasingHead = new int[numJobs];
+            this.headFloors = new int[numOps];
+            this.tailFloors = new int[numOps];
+
+            this.startTimes = new int[numOps];
+            this.previousOnMachine = new int[numOps];
+            this.sequence = new int[numMachines * numJobs];
+            this.sequenceSize = new int[numMachines];
+            this.nextTask = new int[numJobs];
+            this.jobEnd = new int[numJobs];
+            this.machineEnd = new int[numMachines];
+
+            this.path = new int[numOps];
+            this.blockStart = new int[numOps + 1];
+        }
+
+        /** Searches an optimal schedule. Returns true if the incumbent is proved optimal, false if the context
+         * stopped the search. */
+        boolean run() {
+            // Searching a schedule that reaches the lower bound prunes almost every node, so this search is short.
+            // It finds the optimum when the bound is tight, otherwise the bound is increased while the searches
+            // are exhausted within their budget. The depth-first search depends a lot on the list schedules that
+            // order the children, so each rule gets its own search.
+            while(lowerBound < upperBound) {
+                cutoff = lowerBound + 1;
+                int status = NODE_LIMIT;
+                for(int rule = 0 ; rule < RULES && status == NODE_LIMIT ; rule++) {
+                    firstRule = rule;
+                    lastRule = rule;
+                    status = explore(PROBE_NODES_PER_TASK * numOps);
+                }
+                if(status == STOPPED)
+                    return false;
+                if(status == NODE_LIMIT)
+                    break;
+                if(upperBound > lowerBound)
+                    lowerBound++;
+            }
+            firstRule = 0;
+            lastRule = RULES - 1;
+            cutoff = upperBound;
+            return explore(Long.MAX_VALUE) != STOPPED;
+        }
+
+        /** Explores the tree from the root, pruning the nodes that cannot contain a schedule better than cutoff.
+         * Returns EXHAUSTED when the tree is exhausted or the incumbent reaches the lower bound, STOPPED when the
+         * context stops the search and NODE_LIMIT after maxNodes nodes. */
+        private int explore(long maxNodes) {
+            undo(0);
+            numChildren = 0;
+            numArcs = 0;
+            // the root has no arc
+            pushChild(0);
+            for(long nodes = 0 ; numChildren > 0 ; nodes++) {
+                if(upperBound <= lowerBound)
+                    return EXHAUSTED;
+                if(context.shouldStop())
+                    return STOPPED;
+                if(nodes == maxNodes)
+                    return NODE_LIMIT;
+                numChildren--;
+                undo(childMark[numChildren]);
+                int from = childArcs[numChildren];
+                for(int i = from ; i < numArcs ; i++) {
+                    fix(arcFrom[i], arcTo[i]);
+                }
+                // the arcs of the siblings are below those of this child
+                numArcs = from;
+                context.counters.iteration();
+
+                if(!bound())
+                    continue;
+                listSchedules();
+                if(nodeBound >= cutoff)
+                    continue;
+                criticalPath();
+                context.counters.criticalPath();
+                branch();
+            }
+            return stopped ? STOPPED : EXHAUSTED;
+        }
+
+        /** Fixes the arc from -> to, both tasks being on the same machine. */
+        private void fix(int from, int to) {
+            int job = to / numTasks;
+            int index = from * words + (job >>> 6);
+            long bit = 1L << job;
+            if((after[index] & bit) == 0) {
+                trailIndex[trailSize] = index;
+                trailValue[trailSize] = after[index];
+                trailSize++;
+                after[index] |= bit;
+            }
+        }
+
+        private boolean isFixed(int from, int to) {
+            int job = to / numTasks;
+            return (after[from * words + (job >>> 6)] & (1L << job)) != 0;
+        }
+
+        /** Restores the arcs fixed when the trail had the given size. */
+        private void undo(int mark) {
+            while(trailSize > mark) {
+                trailSize--;
+                after[trailIndex[trailSize]] = trailValue[trailSize];
+            }
+        }
+
+        /** Computes the heads, tails and lower bound of the current node, applying immediate selection until it
+         * finds nothing new. Returns false if the node cannot contain a better schedule. */
+        private boolean bound() {
+            Arrays.fill(headFloors, 0);
+            Arrays.fill(tailFloors, 0);
+            while(true) {
+                if(!headsAndTails())
+                    return false; // cycle
+                nodeBound = 0;
+                for(int m = 0 ; m < numMachines ; m++) {
+                    nodeBound = Math.max(nodeBound, jackson(m));
+                    if(nodeBound >= cutoff)
+                        return false;
+                }
+                int selected = immediateSelection();
+                if(selected < 0)
+                    return false;
+                if(selected == 0)
+                    return true;
+            }
+        }
+
+        /** Longest paths from the start and to the end in the graph of the jobs and the fixed arcs.
+         * Returns false if the fixed arcs make a cycle. */
+        private boolean headsAndTails() {
+            Arrays.fill(predecessors, 0);
+            for(int op = 0 ; op < numOps ; op++) {
+                if(op % numTasks > 0)
+                    predecessors[op]++;
+                int base = machines[op] * numJobs;
+                for(int w = 0 ; w < words ; w++) {
+                    for(long bits = after[op * words + w] ; bits != 0 ; bits &= bits - 1) {
+                        predecessors[opOnMachine[base + (w << 6) + Long.numberOfTrailingZeros(bits)]]++;
+                    }
+                }
+            }
+            int size = 0;
+            for(int j = 0 ; j < numJobs ; j++) {
+                if(predecessors[j * numTasks] == 0)
+                    topoOrder[size++] = j * numTasks;
+            }
+            System.arraycopy(headFloors, 0, heads, 0, numOps);
+            for(int i = 0 ; i < size ; i++) {
+                int op = topoOrder[i];
+                int end = heads[op] + durations[op];
+                if(op % numTasks < numTasks - 1) {
+                    heads[op + 1] = Math.max(heads[op + 1], end);
+                    if(--predecessors[op + 1] == 0)
+                        topoOrder[size++] = op + 1;
+                }
+                int base = machines[op] * numJobs;
+                for(int w = 0 ; w < words ; w++) {
+                    for(long bits = after[op * words + w] ; bits != 0 ; bits &= bits - 1) {
+                        int next = opOnMachine[base + (w << 6) + Long.numberOfTrailingZeros(bits)];
+                        heads[next] = Math.max(heads[next], end);
+                        if(--predecessors[next] == 0)
+                            topoOrder[size++] = next;
+                    }
+                }
+            }
+            if(size < numOps)
+                return false;
+            for(int i = numOps - 1 ; i >= 0 ; i--) {
+                int op = topoOrder[i];
+                int tail = tailFloors[op];
+                if(op % numTasks < numTasks - 1)
+                    tail = Math.max(tail, tails[op + 1] + durations[op + 1]);
+                int base = machines[op] * numJobs;
+                for(int w = 0 ; w < words ; w++) {
+                    for(long bits = after[op * words + w] ; bits != 0 ; bits &= bits - 1) {
+                        int next = opOnMachine[base + (w << 6) + Long.numberOfTrailingZeros(bits)];
+                        tail = Math.max(tail, tails[next] + durations[next]);
+                    }
+                }
+                tails[op] = tail;
+            }
+            return true;
+        }
+
+        /** Makespan of Jackson's preemptive schedule of the tasks of the machine, with their heads and tails. */
+        private int jackson(int machine) {
+            return LowerBound.jackson(opOnMachine, machine * numJobs, numJobs, heads, tails, durations, byHead, remaining);
+        }
+
+        /** Fixes the pairs of tasks of a machine that must be ordered one way, the other way giving a path at
+         * least as long as the incumbent, then the tasks that must be executed before or after a set of tasks of
+         * their machine. Returns the number of arcs fixed and heads or tails raised, -1 if a pair cannot be ordered. */
+        private int immediateSelection() {
+            int fixed = 0;
+            for(int m = 0 ; m < numMachines ; m++) {
+                int base = m * numJobs;
+                for(int j = 0 ; j < numJobs ; j++) {
+                    int a = opOnMachine[base + j];
+                    for(int k = j + 1 ; k < numJobs ; k++) {
+                        int b = opOnMachine[base + k];
+                        if(isFixed(a, b) || isFixed(b, a))
+                            continue;
+                        boolean abTooLong = heads[a] + durations[a] + durations[b] + tails[b] >= cutoff;
+                        boolean baTooLong = heads[b] + durations[b] + durations[a] + tails[a] >= cutoff;
+                        if(abTooLong && baTooLong)
+                            return -1;
+                        if(abTooLong) {
+                            fix(b, a);
+                            fixed++;
+                        } else if(baTooLong) {
+                            fix(a, b);
+                            fixed++;
+                        }
+                    }
+                }
+                fixed += outputs(m, tails, heads, headFloors, false);
+                fixed += outputs(m, heads, tails, tailFloors, true);
+            }
+            return fixed;
+        }
+
+        /** Carlier and Pinson's test on the sets J of tasks of the machine with the largest tails: if
+         * min(head, J + c) + durations(J + c) + min(tail, J) reaches the incumbent, task c must be executed after
+         * all the tasks of J, and cannot start before min(head, J') + durations(J') for any subset J' of J.
+         * With reversed, heads and tails are exchanged and c is executed before J.
+         * Returns the number of arcs fixed and floors raised. */
+        private int outputs(int machine, int[] tails, int[] heads, int[] floors, boolean reversed) {
+            int base = machine * numJobs;
+            sortJobs(base, tails, byTail);
+            sortJobs(base, heads, byDecreasingHead);
+            for(int i = 0 ; i < numJobs ; i++) {
+                rankByTail[byTail[i]] = i;
+            }
+            int fixed = 0;
+            for(int c = 0 ; c < numJobs ; c++) {
+                int op = opOnMachine[base + c];
+                int minHead = heads[op];
+                int total = durations[op];
+                int largest = -1;
+                for(int i = 0 ; i < numJobs ; i++) {
+                    int other = opOnMachine[base + byTail[i]];
+                    if(other == op)
+                        continue;
+                    minHead = Math.min(minHead, heads[other]);
+                    total += durations[other];
+                    if(minHead + total + tails[other] >= cutoff)
+                        largest = i;
+                }
+                if(largest < 0)
+                    continue;
+                for(int i = 0 ; i <= largest ; i++) {
+                    int other = opOnMachine[base + byTail[i]];
+                    int from = reversed ? op : other;
+                    int to = reversed ? other : op;
+                    if(other != op && !isFixed(from, to)) {
+                        fix(from, to);
+                        fixed++;
+                    }
+                }
+                // subsets J' of J made of its tasks with the largest heads
+                int subset = 0;
+                int floor = 0;
+                for(int i = 0 ; i < numJobs ; i++) {
+                    int j = byDecreasingHead[i];
+                    if(j == c || rankByTail[j] > largest)
+                        continue;
+                    int other = opOnMachine[base + j];
+                    subset += durations[other];
+                    floor = Math.max(floor, heads[other] + subset);
+                }
+                if(floor > heads[op]) {
+                    floors[op] = floor;
+                    fixed++;
+                }
+            }
+            return fixed;
+        }
+
+        /** Sorts the jobs by decreasing value of their task on the machine whose tasks start at base. */
+        private void sortJobs(int base, int[] values, int[] sorted) {
+            for(int j = 0 ; j < numJobs ; j++) {
+                int value = values[opOnMachine[base + j]];
+                int i = j;
+                while(i > 0 && values[opOnMachine[base + sorted[i - 1]]] < value) {
+                    sorted[i] = sorted[i - 1];
+                    i--;
+                }
+                sorted[i] = j;
+            }
+        }
+
+        /** Best of the list schedules of the current node with the rules of priority(), which improves the
+         * incumbent if it is better. The list schedule left in the buffers is the best one. Returns its makespan. */
+        private int listSchedules() {
+            int makespan = Integer.MAX_VALUE;
+            int bestRule = firstRule;
+            for(int rule = firstRule ; rule <= lastRule ; rule++) {
+                int m = listSchedule(rule);
+                if(m < makespan) {
+                    makespan = m;
+                    bestRule = rule;
+                }
+            }
+            context.counters.decodes(lastRule - firstRule + 1);
+            if(bestRule != lastRule) {
+                listSchedule(bestRule);
+                context.counters.decodes(1);
+            }
+            if(makespan < upperBound)
+                improve(makespan);
+            return makespan;
+        }
+
+        /** Priority of a task in the list schedules, the largest first: its tail (then the smallest head), its tail
+         * plus its duration, or its head plus its tail. None of them is the best on all the instances. */
+        private long priority(int op, int rule) {
+            switch (rule) {
+                case 0:
+                    return ((long) tails[op] << 32) - heads[op];
+                case 1:
+                    return tails[op] + durations[op];
+                default:
+                    return heads[op] + tails[op];
+            }
+        }
+
+        /** Active schedule respecting the fixed arcs (Giffler and Thompson): among the tasks that can start, the
+         * one that can end first selects a machine, on which the conflicting task with the largest priority is
+         * executed. Returns its makespan. */
+        private int listSchedule(int rule) {
+            Arrays.fill(predecessors, 0);
+            for(int op = 0 ; op < numOps ; op++) {
+                int base = machines[op] * numJobs;
+                for(int w = 0 ; w < words ; w++) {
+                    for(long bits = after[op * words + w] ; bits != 0 ; bits &= bits - 1) {
+                        predecessors[opOnMachine[base + (w << 6) + Long.numberOfTrailingZeros(bits)]]++;
+                    }
+                }
+            }
+            Arrays.fill(nextTask, 0);
+            Arrays.fill(jobEnd, 0);
+            Arrays.fill(machineEnd, 0);
+            Arrays.fill(sequenceSize, 0);
+            int makespan = 0;
+            for(int step = 0 ; step < numOps ; step++) {
+                // machine of the task that can end first
+                int firstEnd = Integer.MAX_VALUE;
+                int firstOp = -1;
+                for(int j = 0 ; j < numJobs ; j++) {
+                    if(nextTask[j] == numTasks)
+                        continue;
+                    int op = j * numTasks + nextTask[j];
+                    if(predecessors[op] > 0)
+                        continue;
+                    int end = Math.max(jobEnd[j], machineEnd[machines[op]]) + durations[op];
+                    if(end < firstEnd) {
+                        firstEnd = end;
+                        firstOp = op;
+                    }
+                }
+                // task of this machine that can start before firstEnd with the largest tail
+                int machine = machines[firstOp];
+                int selected = firstOp;
+                for(int j = 0 ; j < numJobs ; j++) {
+                    if(nextTask[j] == numTasks)
+                        continue;
+                    int op = j * numTasks + nextTask[j];
+                    if(predecessors[op] > 0 || machines[op] != machine
+                            || Math.max(jobEnd[j], machineEnd[machine]) >= firstEnd)
+                        continue;
+                    if(priority(op, rule) > priority(selected, rule))
+                        selected = op;
+                }
+                int job = selected / numTasks;
+                int start = Math.max(jobEnd[job], machineEnd[machine]);
+                startTimes[selected] = start;
+                previousOnMachine[selected] = sequenceSize[machine] == 0 ? -1
+                        : sequence[machine * numJobs + sequenceSize[machine] - 1];
+                sequence[machine * numJobs + sequenceSize[machine]++] = selected;
+                jobEnd[job] = start + durations[selected];
+                machineEnd[machine] = jobEnd[job];
+                makespan = Math.max(makespan, jobEnd[job]);
+                nextTask[job]++;
+                int base = machine * numJobs;
+                for(int w = 0 ; w < words ; w++) {
+                    for(long bits = after[selected * words + w] ; bits != 0 ; bits &= bits - 1) {
+                        predecessors[opOnMachine[base + (w << 6) + Long.numberOfTrailingZeros(bits)]]--;
+                    }
+                }
+            }
+            return makespan;
+        }
+
+        /** Replaces the incumbent by the list schedule, and publishes it. */
+        private void improve(int makespan) {
+            upperBound = makespan;
+            cutoff = Math.min(cutoff, makespan);
+            for(int m = 0 ; m < numMachines ; m++) {
+                best.setTasks(m, sequence, m * numJobs);
+            }
+            context.publish(best.toSchedule());
+        }
+
+        /** Critical path of the list schedule, and its blocks: maximal sequences of its tasks on a same machine. */
+        private void criticalPath() {
+            int last = 0;
+            for(int op = 0 ; op < numOps ; op++) {
+                if(startTimes[op] + durations[op] > startTimes[last] + durations[last])
+                    last = op;
+            }
+            // from the last task to the first one, then reversed
+            int length = 0;
+            int op = last;
+            while(true) {
+                path[length++] = op;
+                int previous = previousOnMachine[op];
+                if(op % numTasks > 0 && startTimes[op - 1] + durations[op - 1] == startTimes[op])
+                    op = op - 1;
+                else if(previous >= 0 && startTimes[previous] + durations[previous] == startTimes[op])
+                    op = previous;
+                else
+                    break;
+            }
+            for(int i = 0, k = length - 1 ; i < k ; i++, k--) {
+                int tmp = path[i];
+                path[i] = path[k];
+                path[k] = tmp;
+            }
+            numBlocks = 0;
+            for(int i = 0 ; i < length ; i++) {
+                if(i == 0 || machines[path[i]] != machines[path[i - 1]])
+                    blockStart[numBlocks++] = i;
+            }
+            blockStart[numBlocks] = length;
+        }
+
+        /** Pushes the children of the current node. For a block B, each task v of B but the first gives the child
+         * "v before the other tasks of B", and each task v of B but the first and the last the child "v after the
+         * other tasks of B, the first task of B staying first". In the children of B, the blocks before B keep their
+         * first and last tasks. The children that cannot contain a better schedule are dropped, and the others are
+         * explored by increasing lower bound. */
+        private void branch() {
+            int mark = trailSize;
+            int base = numArcs;
+            numCandidates = 0;
+            for(int b = 0 ; b < numBlocks ; b++) {
+                int first = blockStart[b];
+                int end = blockStart[b + 1];
+                if(end - first < 2)
+                    continue;
+                for(int v = first + 1 ; v < end ; v++) {
+                    int arcs = numArcs;
+                    for(int w = first ; w < end ; w++) {
+                        if(w != v)
+                            addArc(path[v], path[w]);
+                    }
+                    keepEnds(b);
+                    candidate(mark, arcs);
+                }
+                for(int v = first + 1 ; v < end - 1 ; v++) {
+                    int arcs = numArcs;
+                    for(int w = first ; w < end ; w++) {
+                        if(w != v)
+                            addArc(path[w], path[v]);
+                        if(w != first)
+                            addArc(path[first], path[w]);
+                    }
+                    keepEnds(b);
+                    candidate(mark, arcs);
+                }
+            }
+
+            // the children are pushed by decreasing bound, their arcs being moved accordingly in the pool
+            for(int i = 1 ; i < numCandidates ; i++) {
+                int c = candidates[i];
+                int k = i;
+                while(k > 0 && explorePrior(candidates[k - 1], c)) {
+                    candidates[k] = candidates[k - 1];
+                    k--;
+                }
+                candidates[k] = c;
+            }
+            int size = numArcs - base;
+            if(scratchFrom.length < size) {
+                scratchFrom = new int[2 * size];
+                scratchTo = new int[2 * size];
+            }
+            System.arraycopy(arcFrom, base, scratchFrom, 0, size);
+            System.arraycopy(arcTo, base, scratchTo, 0, size);
+            numArcs = base;
+            for(int i = 0 ; i < numCandidates ; i++) {
+                int c = candidates[i];
+                int arcs = numArcs;
+                for(int a = candidateStart[c] ; a < candidateEnd[c] ; a++) {
+                    addArc(scratchFrom[a - base], scratchTo[a - base]);
+                }
+                pushChild(mark, arcs);
+            }
+        }
+
+        /** True if candidate a must be explored before candidate b: smaller lower bound, then better list schedule. */
+        private boolean explorePrior(int a, int b) {
+            if(candidateBound[a] != candidateBound[b])
+                return candidateBound[a] < candidateBound[b];
+            return candidateMakespan[a] < candidateMakespan[b];
+        }
+
+        /** Computes the lower bound of the child made of the arcs from index arcs, and keeps it as a candidate if it
+         * may contain a better schedule. Its arcs are removed from the pool otherwise. */
+        private void candidate(int mark, int arcs) {
+            // the children of a node take long to evaluate on large instances
+            if(context.shouldStop()) {
+                stopped = true;
+                numArcs = arcs;
+                return;
+            }
+            for(int i = arcs ; i < numArcs ; i++) {
+                fix(arcFrom[i], arcTo[i]);
+            }
+            int bound = -1;
+            if(headsAndTails()) {
+                bound = 0;
+                for(int m = 0 ; m < numMachines && bound < cutoff ; m++) {
+                    bound = Math.max(bound, jackson(m));
+                }
+            }
+            int makespan = Integer.MAX_VALUE;
+            if(bound >= 0 && bound < cutoff) {
+                makespan = listSchedules();
+            }
+            undo(mark);
+            if(bound < 0 || bound >= cutoff) {
+                numArcs = arcs;
+                return;
+            }
+            if(numCandidates == candidates.length) {
+                candidates = Arrays.copyOf(candidates, 2 * numCandidates);
+                candidateStart = Arrays.copyOf(candidateStart, 2 * numCandidates);
+                candidateEnd = Arrays.copyOf(candidateEnd, 2 * numCandidates);
+                candidateBound = Arrays.copyOf(candidateBound, 2 * numCandidates);
+                candidateMakespan = Arrays.copyOf(candidateMakespan, 2 * numCandidates);
+            }
+            candidates[numCandidates] = numCandidates;
+            candidateStart[numCandidates] = arcs;
+            candidateEnd[numCandidates] = numArcs;
+            candidateBound[numCandidates] = bound;
+            candidateMakespan[numCandidates] = makespan;
+            numCandidates++;
+        }
+
+        /** Adds the arcs keeping the first and last tasks of the blocks before block b at the ends of their block. */
+        private void keepEnds(int b) {
+            for(int l = 0 ; l < b ; l++) {
+                int first = blockStart[l];
+                int last = blockStart[l + 1] - 1;
+                for(int w = first + 1 ; w <= last ; w++) {
+                    addArc(path[first], path[w]);
+                    if(w < last)
+                        addArc(path[w], path[last]);
+                }
+            }
+        }
+
+        private void addArc(int from, int to) {
+            if(numArcs == arcFrom.length) {
+                arcFrom = Arrays.copyOf(arcFrom, 2 * numArcs);
+                arcTo = Arrays.copyOf(arcTo, 2 * numArcs);
+            }
+            arcFrom[numArcs] = from;
+            arcTo[numArcs] = to;
+            numArcs++;
+        }
+
+        private void pushChild(int mark) {
+            pushChild(mark, numArcs);
+        }
+
+        /** Pushes a child of the node whose trail has the given size, its arcs being those from index arcs. */
+        private void pushChild(int mark, int arcs) {
+            if(numChildren == childMark.length) {
+                childMark = Arrays.copyOf(childMark, 2 * numChildren);
+                childArcs = Arrays.copyOf(childArcs, 2 * numChildren);
+            }
+            childMark[numChildren] = mark;
+            childArcs[numChildren] = arcs;
+            numChildren++;
+        }
+    }
+}
@@ -3,51 +3,92 @@ package jobshop.solvers;
 import jobshop.Instance;
 import jobshop.Result;
 import jobshop.Schedule;
+import jobshop.SolveContext;
 import jobshop.Solver;
 import jobshop.encodings.ResourceOrder;
-import java.util.List;
+import jobshop.io.SolutionStore;
 
 public class DescentSolver implements Solver {
-    @Override
+    /** number of threads used to evaluate the neighbors */
+    private final int threads;
+    /** best known solutions, null to always start from a greedy solution. Shared by the concurrent solves. */
+    private volatile SolutionStore store = null;
+
+    public DescentSolver() {
+        this(1);
+    }
+
+    /** The neighbors that may improve the current solution are decoded on the given number of threads.
+     * The result does not depend on the number of threads. */
+    public DescentSolver(int threads) {
+        this.threads = threads;
+    }
 
-    public Result solve(Instance instance, long deadline) {
+    /** Starts the descents from the solution of the store when it has one for the instance (warm start),
+     * and stores the solutions found when they improve it. */
+    public void setSolutionStore(SolutionStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Result solve(SolveContext context) {
+        Instance instance = context.instance;
         //Init
-        Schedule bestSolution = new GreedySolver(GreedySolver.Priority.SPT).solve(instance,deadline).schedule;
-
-        //Boucle
-        while (deadline - System.currentTimeMillis() > 1) {
-            List<Voisinage.Block> blocks = Voisinage.blocksOfCriticalPath(new ResourceOrder(bestSolution));
-            ResourceOrder bestVoisin = null;
-            //recherche du meilleur voisin
-            for (Voisinage.Block b : blocks) {
-                List<Voisinage.Swap> voisins = Voisinage.neighbors(b);
-                for (Voisinage.Swap swap : voisins) {
-                    // voisin de la meilleure solution
-                    ResourceOrder voisin = new ResourceOrder(bestSolution);
-                    swap.applyOn(voisin);
-                    Schedule voisinSched = voisin.toSchedule();
-                    // si l'objectif est meilleur
-                    if ((bestVoisin == null) || (voisinSched != null && obj(voisinSched) < obj(bestVoisin))) {
-                        bestVoisin = voisin.copy();
+        // la solution courante est modifiee sur place, c'est toujours la meilleure
+        SolutionStore store = this.store;
+        ResourceOrder current = store == null ? null : store.load(instance);
+        if (current == null) {
+            current = new ResourceOrder(new GreedySolver(GreedySolver.Priority.SPT).solve(context).schedule);
+        }
+        DisjunctiveGraph graph = new DisjunctiveGraph(current);
+        context.counters.decodes(1);
+        if (!graph.update())
+            throw new IllegalStateException("The initial solution contains a cycle");
+
+        // voisinage et candidats de l'iteration courante, alloues une fois : un voisin par tache au plus
+        int numOps = instance.numJobs * instance.numTasks;
+        Voisinage.Swaps voisins = new Voisinage.Swaps(numOps);
+        Voisinage.Swaps candidats = new Voisinage.Swaps(numOps);
+        int[] makespans = new int[numOps];
+        try (ParallelNeighborhood scan = new ParallelNeighborhood(instance, threads)) {
+            //Boucle
+            while (!context.shouldStop()) {
+                int makespan = graph.makespan();
+                if (makespan < context.bestMakespan()) {
+                    context.publish(graph.toSchedule());
+                }
+                Voisinage.neighborsOfCriticalPath(graph, voisins);
+                context.counters.iteration();
+                context.counters.criticalPath();
+                // voisins pouvant ameliorer : l'estimation est une borne inf de leur makespan,
+                // les autres ne peuvent pas etre meilleurs que la solution courante
+                candidats.clear();
+                for (int i = 0; i < voisins.size; i++) {
+                    if (graph.evaluate(voisins.machine[i], voisins.t1[i], voisins.t2[i]) < makespan) {
+                        candidats.add(voisins.machine[i], voisins.t1[i], voisins.t2[i]);
                     }
                 }
-            }
-            // fin de parcours des voisins, on a le meilleur
-            if (obj(bestVoisin) < obj(bestSolution)) {
-                bestSolution = bestVoisin.toSchedule();
-            }else {
-                return new Result(instance, bestSolution, Result.ExitCause.Timeout);
+                context.counters.neighbors(voisins.size);
+                // makespan exact des candidats, evalues en parallele
+                scan.evaluate(current, candidats, makespans, context);
+                int best = ParallelNeighborhood.argMin(makespans, candidats.size);
+                if (best == -1 || makespans[best] >= makespan) {
+                    // optimum local
+                    break;
+                }
+                // on applique uniquement le meilleur voisin, decode sans cycle
+                if (!graph.apply(candidats.machine[best], candidats.t1[best], candidats.t2[best])) {
+                    context.counters.infeasibleMoves(1);
+                    throw new IllegalStateException("The best neighbor contains a cycle");
+                }
             }
         }
-        return new Result(instance, bestSolution, Result.ExitCause.Timeout);
-    }
-
-    private int obj(ResourceOrder order){
-        return order.toSchedule().makespan();
-    }
-
-    private int obj(Schedule sched){
-        return sched.makespan();
+        if (store != null) {
+            store.offer(current);
+        }
+        Schedule schedule = graph.toSchedule();
+        context.publish(schedule);
+        return context.result(schedule, context.stopCause());
     }
 
-}
\ No newline at end of file
+}
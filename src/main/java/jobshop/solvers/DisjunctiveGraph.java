@@ -0,0 +1,403 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.Arrays;
+
+/** Disjunctive graph of a ResourceOrder, with the heads and tails of its operations kept up to date as the
+ * order is modified, for the neighborhoods of the local searches.
+ *
+ * For every operation we keep its head (earliest start time) and its tail (length of the longest path
+ * from the end of the operation to the end of the schedule), along with a topological order of the graph.
+ * Exchanging two adjacent tasks of a machine with apply() only reverses one arc: the topological order is repaired
+ * on the region between the two tasks (Pearce and Kelly), then the heads are propagated forward and the tails
+ * backward from the modified arcs, stopping where they do not change. The makespan and the critical path are
+ * then available without decoding the solution. Other modifications of the order must be followed by update(),
+ * which recomputes everything.
+ *
+ * Swapping two adjacent tasks u and v of a machine only changes the heads and tails of u and v, so the length of
+ * the longest path going through u or v in the neighbor can be computed in constant time (Taillard's estimate)
+ * with evaluate().
+ *
+ * Operations are identified by their index in the row-major arrays of the instance (Instance.op).
+ */
+class DisjunctiveGraph {
+
+    private final Instance instance;
+    private final ResourceOrder order;
+
+    /** duration of each operation */
+    private final int[] duration;
+    /** earliest start time of each operation */
+    private final int[] head;
+    /** longest path from the end of each operation to the end of the schedule */
+    private final int[] tail;
+    /** operations sorted in a topological order of the disjunctive graph, and index of each one in it */
+    private final int[] topo;
+    private final int[] topoIndex;
+    /** predecessor and successor of each operation on its machine, -1 if none */
+    private final int[] machinePred;
+    private final int[] machineSucc;
+
+    // buffers of the incremental updates
+    private final boolean[] marked;
+    private final int[] stack;
+    private final int[] forward;
+    private final int[] backward;
+    private final int[] slots;
+    /** critical path computed by criticalPath() */
+    private final int[] path;
+    /** working arrays of the full decodings of update() */
+    private final ResourceOrder.DecodeBuffers decodeBuffers;
+
+    private int makespan;
+
+    /** Graph of the given order, which is then modified by apply(). update() must be called before any other
+     * method. */
+    DisjunctiveGraph(ResourceOrder order) {
+        this.instance = order.instance;
+        this.order = order;
+
+        int numOps = instance.numJobs * instance.numTasks;
+        duration = instance.durations;
+        head = new int[numOps];
+        tail = new int[numOps];
+        topo = new int[numOps];
+        topoIndex = new int[numOps];
+        machinePred = new int[numOps];
+        machineSucc = new int[numOps];
+        marked = new boolean[numOps];
+        stack = new int[numOps];
+        forward = new int[numOps];
+        backward = new int[numOps];
+        slots = new int[numOps];
+        path = new int[numOps];
+        decodeBuffers = new ResourceOrder.DecodeBuffers(instance);
+    }
+
+    private boolean hasJobPred(int op) {
+        return op % instance.numTasks != 0;
+    }
+
+    private boolean hasJobSucc(int op) {
+        return op % instance.numTasks != instance.numTasks - 1;
+    }
+
+    /** Recomputes heads and tails from the current state of the resource order.
+     * Returns false if the resource order contains a cycle, in which case the graph should not be used. */
+    boolean update() {
+        // machine predecessors and successors
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            int prev = -1;
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                int cur = order.tasksByMachine[m][i];
+                machinePred[cur] = prev;
+                if(prev != -1)
+                    machineSucc[prev] = cur;
+                prev = cur;
+            }
+            machineSucc[prev] = -1;
+        }
+
+        if(!order.decode(head, topo, null, decodeBuffers)) {
+            // cyclic dependency
+            return false;
+        }
+        for(int i = 0 ; i < topo.length ; i++) {
+            topoIndex[topo[i]] = i;
+        }
+
+        // tails, in reverse topological order
+        for(int next = topo.length - 1 ; next >= 0 ; next--) {
+            tail[topo[next]] = computeTail(topo[next]);
+        }
+        updateMakespan();
+        return true;
+    }
+
+    /** The resource order represented by this graph. */
+    ResourceOrder order() {
+        return order;
+    }
+
+    /** Makespan of the resource order. */
+    int makespan() {
+        return makespan;
+    }
+
+    /** Schedule corresponding to the resource order. */
+    Schedule toSchedule() {
+        int[][] startTimes = new int[instance.numJobs][instance.numTasks];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                startTimes[j][t] = head[instance.op(j, t)];
+            }
+        }
+        return new Schedule(instance, startTimes);
+    }
+
+    /** Estimates the makespan of the solution obtained by swapping the tasks at positions t1 and t2 of the machine
+     * in the resource order, without allocating a Voisinage.Swap.
+     *
+     * The swap must exchange two adjacent tasks of a machine. The result is the length of the longest path
+     * going through one of the swapped tasks, which is exact when this path is critical in the neighbor and
+     * a lower bound of the neighbor's makespan otherwise.
+     * Swapping two adjacent tasks of the critical path never creates a cycle (Nowicki and Smutnicki). */
+    int evaluate(int machine, int t1, int t2) {
+        int first = Math.min(t1, t2);
+        assert Math.max(t1, t2) == first + 1 : "only adjacent swaps can be evaluated";
+
+        // u is before v in the current order, after the swap v is before u
+        int u = order.tasksByMachine[machine][first];
+        int v = order.tasksByMachine[machine][first + 1];
+        int before = machinePred[u];
+        int after = machineSucc[v];
+
+        // new heads
+        int headV = Math.max(hasJobPred(v) ? head[v-1] + duration[v-1] : 0,
+                             before != -1 ? head[before] + duration[before] : 0);
+        int headU = Math.max(hasJobPred(u) ? head[u-1] + duration[u-1] : 0,
+                             headV + duration[v]);
+        // new tails
+        int tailU = Math.max(hasJobSucc(u) ? duration[u+1] + tail[u+1] : 0,
+                             after != -1 ? duration[after] + tail[after] : 0);
+        int tailV = Math.max(hasJobSucc(v) ? duration[v+1] + tail[v+1] : 0,
+                             tailU + duration[u]);
+
+        return Math.max(headV + duration[v] + tailV, headU + duration[u] + tailU);
+    }
+
+    /** Applies the swap, which must exchange two adjacent tasks of a machine, on the resource order and updates
+     * the graph. Returns false if the swap creates a cycle, in which case it is not applied. */
+    boolean apply(Voisinage.Swap swap) {
+        return apply(swap.machine, swap.t1, swap.t2);
+    }
+
+    /** Same as apply(swap) for the swap of the tasks at positions t1 and t2 of the machine, without allocating
+     * a Voisinage.Swap. */
+    boolean apply(int machine, int t1, int t2) {
+        int first = Math.min(t1, t2);
+        assert Math.max(t1, t2) == first + 1 : "only adjacent swaps can be applied incrementally";
+        int u = order.tasksByMachine[machine][first];
+        int v = order.tasksByMachine[machine][first + 1];
+
+        // the arc u -> v becomes v -> u: v moves before u in the topological order, with what it depends on
+        if(!reorder(u, v))
+            return false;
+        int before = machinePred[u];
+        int after = machineSucc[v];
+        order.swap(machine, first, first + 1);
+        machinePred[v] = before;
+        if(before != -1)
+            machineSucc[before] = v;
+        machineSucc[v] = u;
+        machinePred[u] = v;
+        machineSucc[u] = after;
+        if(after != -1)
+            machinePred[after] = u;
+
+        // the operations whose predecessors changed are v, u and after, and v comes first in the topological order
+        int pending = 0;
+        pending += mark(v);
+        pending += mark(u);
+        if(after != -1)
+            pending += mark(after);
+        for(int i = topoIndex[v] ; pending > 0 ; i++) {
+            int op = topo[i];
+            if(!marked[op])
+                continue;
+            marked[op] = false;
+            pending--;
+            int h = computeHead(op);
+            if(h != head[op]) {
+                head[op] = h;
+                if(hasJobSucc(op))
+                    pending += mark(op + 1);
+                if(machineSucc[op] != -1)
+                    pending += mark(machineSucc[op]);
+            }
+        }
+        // the operations whose successors changed are before, v and u, and u comes last in the topological order
+        pending = 0;
+        if(before != -1)
+            pending += mark(before);
+        pending += mark(v);
+        pending += mark(u);
+        for(int i = topoIndex[u] ; pending > 0 ; i--) {
+            int op = topo[i];
+            if(!marked[op])
+                continue;
+            marked[op] = false;
+            pending--;
+            int q = computeTail(op);
+            if(q != tail[op]) {
+                tail[op] = q;
+                if(hasJobPred(op))
+                    pending += mark(op - 1);
+                if(machinePred[op] != -1)
+                    pending += mark(machinePred[op]);
+            }
+        }
+        updateMakespan();
+        return true;
+    }
+
+    /** Marks the operation, returns 1 if it was not marked yet. */
+    private int mark(int op) {
+        if(marked[op])
+            return 0;
+        marked[op] = true;
+        return 1;
+    }
+
+    private int computeHead(int op) {
+        int h = hasJobPred(op) ? head[op - 1] + duration[op - 1] : 0;
+        int pred = machinePred[op];
+        if(pred != -1)
+            h = Math.max(h, head[pred] + duration[pred]);
+        return h;
+    }
+
+    private int computeTail(int op) {
+        int q = hasJobSucc(op) ? duration[op + 1] + tail[op + 1] : 0;
+        int succ = machineSucc[op];
+        if(succ != -1)
+            q = Math.max(q, duration[succ] + tail[succ]);
+        return q;
+    }
+
+    private void updateMakespan() {
+        makespan = 0;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int last = instance.op(j, instance.numTasks - 1);
+            makespan = Math.max(makespan, head[last] + duration[last]);
+        }
+    }
+
+    /** Repairs the topological order for the replacement of the arc u -> v by v -> u, u and v being adjacent on
+     * their machine. The operations reachable from u and placed before v, and those reaching v and placed after u,
+     * are the only ones out of order: the latter are moved before the former, on the same indices.
+     * Returns false, leaving the order unchanged, if v is reachable from u without the arc, which makes a cycle. */
+    private boolean reorder(int u, int v) {
+        int lower = topoIndex[u];
+        int upper = topoIndex[v];
+
+        // operations reachable from u, except through the arc u -> v, and placed before v
+        int numForward = 0;
+        int size = 0;
+        stack[size++] = u;
+        marked[u] = true;
+        while(size > 0) {
+            int op = stack[--size];
+            forward[numForward++] = op;
+            int jobSucc = hasJobSucc(op) ? op + 1 : -1;
+            int machSucc = op == u ? -1 : machineSucc[op];
+            for(int k = 0 ; k < 2 ; k++) {
+                int next = k == 0 ? jobSucc : machSucc;
+                if(next == -1 || marked[next] || topoIndex[next] > upper)
+                    continue;
+                if(next == v) {
+                    for(int i = 0 ; i < numForward ; i++) marked[forward[i]] = false;
+                    for(int i = 0 ; i < size ; i++) marked[stack[i]] = false;
+                    return false;
+                }
+                marked[next] = true;
+                stack[size++] = next;
+            }
+        }
+        // operations reaching v, except through the arc u -> v, and placed after u
+        int numBackward = 0;
+        stack[size++] = v;
+        marked[v] = true;
+        while(size > 0) {
+            int op = stack[--size];
+            backward[numBackward++] = op;
+            int jobPred = hasJobPred(op) ? op - 1 : -1;
+            int machPred = op == v ? -1 : machinePred[op];
+            for(int k = 0 ; k < 2 ; k++) {
+                int prev = k == 0 ? jobPred : machPred;
+                if(prev == -1 || marked[prev] || topoIndex[prev] < lower)
+                    continue;
+                marked[prev] = true;
+                stack[size++] = prev;
+            }
+        }
+
+        // the backward operations take the first indices, in their current relative order, then the forward ones
+        sortByTopoIndex(forward, numForward);
+        sortByTopoIndex(backward, numBackward);
+        int numSlots = 0;
+        for(int i = 0 ; i < numBackward ; i++) {
+            slots[numSlots++] = topoIndex[backward[i]];
+        }
+        for(int i = 0 ; i < numForward ; i++) {
+            slots[numSlots++] = topoIndex[forward[i]];
+        }
+        Arrays.sort(slots, 0, numSlots);
+        int s = 0;
+        for(int i = 0 ; i < numBackward ; i++) {
+            place(backward[i], slots[s++]);
+        }
+        for(int i = 0 ; i < numForward ; i++) {
+            place(forward[i], slots[s++]);
+        }
+        return true;
+    }
+
+    private void place(int op, int index) {
+        marked[op] = false;
+        topo[index] = op;
+        topoIndex[op] = index;
+    }
+
+    /** Sorts the n first operations of ops by index in the topological order (insertion sort, the regions are
+     * usually small). */
+    private void sortByTopoIndex(int[] ops, int n) {
+        for(int i = 1 ; i < n ; i++) {
+            int op = ops[i];
+            int k = i;
+            while(k > 0 && topoIndex[ops[k - 1]] > topoIndex[op]) {
+                ops[k] = ops[k - 1];
+                k--;
+            }
+            ops[k] = op;
+        }
+    }
+
+    /** Computes a critical path: it ends with the first job ending at the makespan, and each operation is preceded
+     * by its job predecessor if it ends at its start, by its machine predecessor otherwise. Returns its length,
+     * its operations being given in order by path(). */
+    int criticalPath() {
+        int last = -1;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int op = instance.op(j, instance.numTasks - 1);
+            if(last == -1 || head[op] + duration[op] > head[last] + duration[last])
+                last = op;
+        }
+        // from the end, then reversed
+        int length = 0;
+        int cur = last;
+        path[length++] = cur;
+        while(head[cur] != 0) {
+            if(hasJobPred(cur) && head[cur - 1] + duration[cur - 1] == head[cur])
+                cur = cur - 1;
+            else
+                cur = machinePred[cur];
+            path[length++] = cur;
+        }
+        for(int i = 0, k = length - 1 ; i < k ; i++, k--) {
+            int tmp = path[i];
+            path[i] = path[k];
+            path[k] = tmp;
+        }
+        return length;
+    }
+
+    /** Operations of the critical path computed by the last call to criticalPath(), as its first elements.
+     * Must not be modified. */
+    int[] path() {
+        return path;
+    }
+}
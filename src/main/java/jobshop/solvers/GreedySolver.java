@@ -1,193 +1,230 @@
 package jobshop.solvers;
 
-import com.sun.org.apache.xerces.internal.util.SynchronizedSymbolTable;
 import jobshop.Instance;
 import jobshop.Result;
 import jobshop.Schedule;
+import jobshop.SolveContext;
 import jobshop.Solver;
 import jobshop.encodings.ResourceOrder;
-import jobshop.encodings.Task;
-
-import java.util.ArrayList;
 
+/** Greedy construction of a solution with a priority rule.
+ *
+ * The feasible tasks (the next task of each job) are kept in indexed heaps ordered by the priority of the rule,
+ * ties being broken by the smallest job number, so that a construction runs in O(numJobs * numTasks * log(numJobs)).
+ * The context is checked every CHECK_INTERVAL tasks: when it says to stop, the remaining tasks are appended job by job
+ * without priority, which always gives a valid schedule.
+ */
 public class GreedySolver implements Solver {
     public enum Priority {SPT, LPT, SRPT, LRPT, EST_SPT, EST_LRPT};
 
-    private Priority pr;
-
-    // indicate for each task its start time
-    int [][] startTimes;
+    /** number of tasks placed between two checks of the context, a power of two */
+    private static final int CHECK_INTERVAL = 64;
 
-    // for each machine, earliest time at which the machine can be used
-    int[] releaseTimeOfMachine;
+    private final Priority pr;
 
     public GreedySolver(Priority pr){
         this.pr = pr;
     }
 
     @Override
-    public Result solve(Instance instance, long deadline) {
+    public Result solve(SolveContext context) {
+        Instance instance = context.instance;
         ResourceOrder sol = new ResourceOrder(instance);
-        ArrayList<Task> feasibleTasks = new ArrayList<Task>();
-
-        // indicate for each task its start time
-        startTimes = new int [instance.numJobs][instance.numTasks];
-
-        // for each machine, earliest time at which the machine can be used
-        releaseTimeOfMachine = new int[instance.numMachines];
-
-        int numMachine = 0;
-        int numTask = 0;
-
-        //init
-        for(int j = 0 ; j<instance.numJobs ; j++) {
-            feasibleTasks.add(new Task(j,0));
-        }
-        //boucle
-        while(feasibleTasks.size() != 0){
-            //choisir la tache
-            Task t = taskSelection(feasibleTasks,instance);
-            releaseTimeOfMachine[instance.machine(t.job,t.task)] = startTimes[t.job][t.task] + instance.duration(t.job, t.task);
-            //placer la tache sur la premiere ressource libre
-            numMachine = instance.machine(t.job,t.task);
-            numTask = 0;
-            while(sol.matrixTask[numMachine][numTask] != null){ // si colonne vide alors on avance voir la case suivante
-                numTask++;
-            }
-            sol.matrixTask[numMachine][numTask] = t;
-            //mettre a jour les taches realisables
-            updatefeasibleTasks(t,feasibleTasks,instance);
+        boolean complete;
+        if (pr == Priority.EST_SPT || pr == Priority.EST_LRPT) {
+            complete = dispatchEarliestStart(context, sol);
+        } else {
+            complete = dispatch(context, sol);
         }
         Schedule best = sol.toSchedule();
-        return new Result(instance,best,Result.ExitCause.Timeout);
+        context.counters.decodes(1);
+        context.publish(best);
+        return context.result(best,complete && !context.provedOptimal() ? Result.ExitCause.Timeout : context.stopCause());
     }
 
-    private void updatefeasibleTasks(Task task, ArrayList<Task> feasibleTasks, Instance instance){
-        //si on n'est pas sur la derniere tache alors on remplace par la suivante
-        if (task.task != (instance.numTasks - 1)){
-            //feasibleTasks.add(new Task(task.job,task.task + 1));
-            feasibleTasks.set(feasibleTasks.indexOf(task),new Task(task.job,task.task + 1));
-        }else{// sinon on la supprime
-            feasibleTasks.remove(task);
-
-        }
-    }
-
-    private Task taskSelection(ArrayList<Task> feasibleTasks, Instance instance){
+    /** Priority of the task (job, task) for the rule of the solver: the smallest priority is selected first. */
+    private int priority(Instance instance, int job, int task) {
         switch (this.pr){
             case SPT:
-                return taskSelectionSPT(feasibleTasks, instance);
             case EST_SPT:
-                return taskSelectionESTSPT(feasibleTasks, instance);
+                return instance.duration(job, task);
             case LPT:
-                return taskSelectionLPT(feasibleTasks, instance);
+                return -instance.duration(job, task);
             case SRPT:
-                return taskSelectionSRPT(feasibleTasks, instance);
+                // somme des durees des taches restantes du job (sommes suffixes precalculees)
+                return instance.remainingDuration(job, task);
             case LRPT:
-                return taskSelectionLRPT(feasibleTasks, instance);
             case EST_LRPT:
-                return taskSelectionESTLRPT(feasibleTasks, instance);
+                return -instance.remainingDuration(job, task);
             default:
-                return feasibleTasks.get(0);
+                throw new IllegalStateException("Unknown priority rule " + pr);
         }
     }
 
-    private Task taskSelectionSPT(ArrayList<Task> feasibleTasks, Instance instance){
-        int min = Integer.MAX_VALUE;
-        Task taskMin = new Task(-1,-1);
-        for (Task t : feasibleTasks){
-            if (instance.duration(t.job,t.task) < min) {
-                min = instance.duration(t.job,t.task);
-                taskMin = t;
+    /** Appends the remaining tasks of every job, job after job. */
+    private static void completeInJobOrder(Instance instance, ResourceOrder sol, int[] nextTask) {
+        for(int j = 0 ; j<instance.numJobs ; j++) {
+            for(int t = nextTask[j] ; t<instance.numTasks ; t++) {
+                sol.addTask(j, t);
             }
         }
-        return taskMin;
     }
 
-    private Task taskSelectionLPT(ArrayList<Task> feasibleTasks, Instance instance){
-        int max = Integer.MIN_VALUE;
-        Task taskMax = new Task(-1,-1);
-        for (Task t : feasibleTasks){
-            if (instance.duration(t.job,t.task) > max) {
-                max = instance.duration(t.job,t.task);
-                taskMax = t;
+    /** Selects at each step the feasible task with the best priority.
+     * Returns false if the context stopped the construction, which was then completed in job order. */
+    private boolean dispatch(SolveContext context, ResourceOrder sol) {
+        Instance instance = context.instance;
+        // taches realisables : la prochaine tache de chaque job, par priorite puis par numero de job
+        IndexedHeap feasibleTasks = new IndexedHeap(instance.numJobs);
+        int[] nextTask = new int[instance.numJobs];
+
+        //init
+        for(int j = 0 ; j<instance.numJobs ; j++) {
+            feasibleTasks.add(j, IndexedHeap.key(priority(instance, j, 0), j));
+        }
+        //boucle
+        for(int placed = 1 ; !feasibleTasks.isEmpty() ; placed++){
+            if((placed & (CHECK_INTERVAL - 1)) == 0 && context.shouldStop()) {
+                completeInJobOrder(instance, sol, nextTask);
+                return false;
+            }
+            //choisir la tache
+            int job = feasibleTasks.poll();
+            //placer la tache sur la premiere ressource libre
+            sol.addTask(job, nextTask[job]);
+            //mettre a jour les taches realisables : la suivante du job s'il en reste
+            nextTask[job]++;
+            if(nextTask[job] < instance.numTasks) {
+                feasibleTasks.add(job, IndexedHeap.key(priority(instance, job, nextTask[job]), job));
             }
         }
-        return taskMax;
+        return true;
     }
 
-    // on regarde toutes les taches apres celle en cours
-    private int remainingTime(Task task, Instance instance){
-        int duree = 0;
-        for(int t = task.task; t < instance.numTasks; t++){
-            duree += instance.duration(task.job,t);
+    /** Selects at each step, among the feasible tasks with the earliest start time, the one with the best priority.
+     *
+     * The earliest start time of the selected task never decreases, so the construction advances a current time.
+     * The tasks that can start at the current time are those whose job is ready and whose machine is free:
+     * they are kept in one heap per machine, and the free machines in a heap ordered by their best task.
+     * When there are none, the current time jumps to the next release of a job or of a machine.
+     * Returns false if the context stopped the construction, which was then completed in job order.
+     */
+    private boolean dispatchEarliestStart(SolveContext context, ResourceOrder sol) {
+        Instance instance = context.instance;
+        // for each job, its next task and the time at which it can start on its job
+        int[] nextTask = new int[instance.numJobs];
+        int[] jobReady = new int[instance.numJobs];
+        // for each machine, earliest time at which the machine can be used
+        int[] releaseTimeOfMachine = new int[instance.numMachines];
+
+        EarliestStart est = new EarliestStart(instance, nextTask, releaseTimeOfMachine);
+        for(int j = 0 ; j<instance.numJobs ; j++) {
+            est.release(j);
         }
-        return duree;
-    }
 
-    private Task taskSelectionSRPT(ArrayList<Task> feasibleTasks, Instance instance){
-        //somme des durees des taches restantes du job
-        int min = Integer.MAX_VALUE;
-        Task taskMin = null;
-        //recherche de la tache avec la plus petite duree de taches restantes
-        for (Task task : feasibleTasks){
-            if (remainingTime(task,instance) < min){
-                min = remainingTime(task,instance);
-                taskMin = new Task(task.job,task.task);
+        for(int remaining = instance.numJobs * instance.numTasks ; remaining > 0 ; remaining--) {
+            if((remaining & (CHECK_INTERVAL - 1)) == 0 && context.shouldStop()) {
+                completeInJobOrder(instance, sol, nextTask);
+                return false;
             }
-        }
-        return taskMin;
-    }
-    private Task taskSelectionLRPT(ArrayList<Task> feasibleTasks, Instance instance){
-        //somme des durees des taches restantes du job
-        int max = Integer.MIN_VALUE;
-        Task taskMax = null;
-        //recherche de la tache avec la plus grande duree de taches restantes
-        for (Task task : feasibleTasks){
-            if (remainingTime(task,instance) > max){
-                max = remainingTime(task,instance);
-                taskMax = new Task(task.job,task.task);
+            while(est.available.isEmpty()) {
+                est.advance();
+            }
+            // best task among the ones that can start at the current time
+            int machine = est.available.poll();
+            int job = est.released[machine].poll();
+            int task = nextTask[job];
+            sol.addTask(job, task);
+
+            int end = est.time + instance.duration(job, task);
+            releaseTimeOfMachine[machine] = end;
+            jobReady[job] = end;
+            if(end > est.time) {
+                est.busy.add(machine, IndexedHeap.key(end, machine));
+            } else {
+                est.makeAvailable(machine);
             }
-        }
-        return taskMax;
-    }
 
-    private Task taskSelectionESTSPT(ArrayList<Task> feasibleTasks, Instance instance){
-        return taskSelectionSPT(estTasks(feasibleTasks,instance), instance);
+            nextTask[job]++;
+            if(nextTask[job] < instance.numTasks) {
+                if(end > est.time) {
+                    est.unreleased.add(job, IndexedHeap.key(end, job));
+                } else {
+                    est.release(job);
+                }
+            }
+        }
+        return true;
     }
 
-    private Task taskSelectionESTLRPT(ArrayList<Task> feasibleTasks, Instance instance){
-        return taskSelectionLRPT(estTasks(feasibleTasks,instance), instance);
-    }
+    /** Working state of dispatchEarliestStart. */
+    private class EarliestStart {
+        final Instance instance;
+        final int[] nextTask;
+        final int[] releaseTimeOfMachine;
+
+        /** every task that remains to schedule starts at or after this time */
+        int time = 0;
+        /** jobs whose next task cannot start yet, by the time at which the previous task ends */
+        final IndexedHeap unreleased;
+        /** machines in use at the current time, by the time at which they are released */
+        final IndexedHeap busy;
+        /** for each machine, the jobs whose next task uses it and can start on its job, by priority */
+        final IndexedHeap[] released;
+        /** free machines with released tasks, by the key of their best task */
+        final IndexedHeap available;
+
+        EarliestStart(Instance instance, int[] nextTask, int[] releaseTimeOfMachine) {
+            this.instance = instance;
+            this.nextTask = nextTask;
+            this.releaseTimeOfMachine = releaseTimeOfMachine;
+            unreleased = new IndexedHeap(instance.numJobs);
+            busy = new IndexedHeap(instance.numMachines);
+            available = new IndexedHeap(instance.numMachines);
+            released = new IndexedHeap[instance.numMachines];
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                released[m] = new IndexedHeap(instance.numJobs);
+            }
+        }
 
-    //renvoie les taches realisables avec le plus petit est
-    private ArrayList<Task> estTasks(ArrayList<Task> feasibleTasks, Instance instance){
-        ArrayList<Task> estFeasibleTasks = new ArrayList<Task>();
-
-        int bestEst = Integer.MAX_VALUE;
-        //calcul des est et recherche du meilleur
-        for (Task t : feasibleTasks){
-            int machine = instance.machine(t.job, t.task);
-            // compute the earliest start time (est) of the task
-            int est;
-            if(t.task == 0){
-                est = 0;
-            } else{
-                est = startTimes[t.job][t.task-1] + instance.duration(t.job, t.task-1);
+        /** The next task of the job can start on its job at the current time. */
+        void release(int job) {
+            int task = nextTask[job];
+            int machine = instance.machine(job, task);
+            released[machine].add(job, IndexedHeap.key(priority(instance, job, task), job));
+            if(releaseTimeOfMachine[machine] <= time) {
+                makeAvailable(machine);
             }
-            est = Math.max(est, releaseTimeOfMachine[machine]);
-            startTimes[t.job][t.task] = est;
+        }
 
-            if (est < bestEst){
-                bestEst = est;
+        /** The machine is free at the current time: its best released task becomes a candidate. */
+        void makeAvailable(int machine) {
+            if(released[machine].isEmpty())
+                return;
+            long key = released[machine].peekKey();
+            if(available.contains(machine)) {
+                available.update(machine, key);
+            } else {
+                available.add(machine, key);
             }
         }
-        //recherche des taches avec le meilleur est
-        for (Task t : feasibleTasks){
-            if (startTimes[t.job][t.task] == bestEst){
-                estFeasibleTasks.add(t);
+
+        /** Moves the current time to the next release of a job or a machine. */
+        void advance() {
+            int next = Integer.MAX_VALUE;
+            if(!unreleased.isEmpty())
+                next = Math.min(next, IndexedHeap.priority(unreleased.peekKey()));
+            if(!busy.isEmpty())
+                next = Math.min(next, IndexedHeap.priority(busy.peekKey()));
+            assert next != Integer.MAX_VALUE : "no task left to schedule";
+            time = next;
+
+            while(!unreleased.isEmpty() && IndexedHeap.priority(unreleased.peekKey()) <= time) {
+                release(unreleased.poll());
+            }
+            while(!busy.isEmpty() && IndexedHeap.priority(busy.peekKey()) <= time) {
+                makeAvailable(busy.poll());
             }
         }
-        return estFeasibleTasks;
     }
 }
@@ -0,0 +1,135 @@
+package jobshop.solvers;
+
+import java.util.Arrays;
+
+/** Binary min-heap of integer identifiers in [0, capacity), each one with a long key.
+ *
+ * The position of every identifier in the heap is kept up to date, so that the key of an identifier can be
+ * changed or the identifier removed in O(log n). Keys built with key(priority, id) order the identifiers by
+ * priority, then by identifier.
+ */
+final class IndexedHeap {
+
+    private final int[] heap;
+    /** position of each identifier in the heap, -1 if absent */
+    private final int[] position;
+    private final long[] keys;
+    private int size = 0;
+
+    IndexedHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /** Key ordering by increasing priority, then by increasing id (ids are non-negative). */
+    static long key(int priority, int id) {
+        return ((long) priority << 32) | id;
+    }
+
+    /** Priority of a key built with key(priority, id). */
+    static int priority(long key) {
+        return (int) (key >> 32);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int id) {
+        return position[id] != -1;
+    }
+
+    long keyOf(int id) {
+        return keys[id];
+    }
+
+    /** Identifier with the smallest key. */
+    int peek() {
+        return heap[0];
+    }
+
+    /** Smallest key. */
+    long peekKey() {
+        return keys[heap[0]];
+    }
+
+    /** Adds an identifier that is not in the heap yet. */
+    void add(int id, long key) {
+        assert !contains(id);
+        keys[id] = key;
+        heap[size] = id;
+        position[id] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    /** Changes the key of an identifier of the heap. */
+    void update(int id, long key) {
+        assert contains(id);
+        long old = keys[id];
+        keys[id] = key;
+        if(key < old)
+            siftUp(position[id]);
+        else
+            siftDown(position[id]);
+    }
+
+    /** Removes and returns the identifier with the smallest key. */
+    int poll() {
+        int top = heap[0];
+        remove(top);
+        return top;
+    }
+
+    /** Removes an identifier of the heap. */
+    void remove(int id) {
+        int i = position[id];
+        position[id] = -1;
+        size--;
+        if(i != size) {
+            int last = heap[size];
+            heap[i] = last;
+            position[last] = i;
+            siftDown(i);
+            siftUp(position[last]);
+        }
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        while(i > 0) {
+            int parent = (i - 1) / 2;
+            if(keys[heap[parent]] <= keys[id])
+                break;
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        while(true) {
+            int child = 2 * i + 1;
+            if(child >= size)
+                break;
+            if(child + 1 < size && keys[heap[child + 1]] < keys[heap[child]])
+                child++;
+            if(keys[id] <= keys[heap[child]])
+                break;
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+}
@@ -0,0 +1,162 @@
+package jobshop.solvers;
+
+import jobshop.Counters;
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.SolveContext;
+import jobshop.Solver;
+import jobshop.encodings.JobNumbers;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** Island model of taboo search: several taboo searches run in parallel from different initial solutions
+ * and periodically exchange their best solutions.
+ *
+ * The islands form a ring. Every migrationInterval iterations, an island publishes its best solution in its own
+ * slot and looks at the slot of the previous island: if the solution there is better than its own best, the island
+ * continues its search from it. Each slot has a single writer and a single reader, and holds an immutable copy,
+ * so the exchange needs no lock.
+ */
+public class IslandTabooSolver implements Solver {
+
+    /** Rules used for the initial solutions of the first islands, the next ones start from random solutions. */
+    private static final GreedySolver.Priority[] STARTS = {
+            GreedySolver.Priority.EST_LRPT, GreedySolver.Priority.EST_SPT,
+            GreedySolver.Priority.LRPT, GreedySolver.Priority.SRPT,
+            GreedySolver.Priority.SPT, GreedySolver.Priority.LPT
+    };
+
+    /** Solution published by an island. Never modified once published. */
+    private static class Elite {
+        final ResourceOrder order;
+        final int makespan;
+
+        Elite(ResourceOrder order, int makespan) {
+            this.order = order;
+            this.makespan = makespan;
+        }
+    }
+
+    private final int islands;
+    private final int maxIter;
+    private final int dureeTaboo;
+    private final int migrationInterval;
+
+    /**
+     * @param islands number of taboo searches, each one running on its own thread
+     * @param maxIter maximum number of iterations of each island
+     * @param dureeTaboo number of iterations during which a swap stays taboo
+     * @param migrationInterval number of iterations between two exchanges of solutions
+     */
+    public IslandTabooSolver(int islands, int maxIter, int dureeTaboo, int migrationInterval) {
+        if(islands < 1 || migrationInterval < 1)
+            throw new IllegalArgumentException("Need at least one island and a positive migration interval");
+        this.islands = islands;
+        this.maxIter = maxIter;
+        this.dureeTaboo = dureeTaboo;
+        this.migrationInterval = migrationInterval;
+    }
+
+    @Override
+    public Result solve(SolveContext context) {
+        Instance instance = context.instance;
+        AtomicReferenceArray<Elite> published = new AtomicReferenceArray<>(islands);
+        ExecutorService pool = Executors.newFixedThreadPool(islands, r -> {
+            Thread t = new Thread(r, "taboo-island");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Elite>> runs = new ArrayList<>();
+            for(int i = 0 ; i < islands ; i++) {
+                final int island = i;
+                runs.add(pool.submit(() -> {
+                    long allocated = Counters.threadAllocatedBytes();
+                    Elite elite = runIsland(context, island, published);
+                    context.counters.allocated(Counters.threadAllocatedBytes() - allocated);
+                    return elite;
+                }));
+            }
+
+            Elite best = null;
+            for(Future<Elite> run : runs) {
+                // an interrupt cancels the context, the islands then stop at their next iteration
+                Elite result = context.await(run);
+                if(best == null || result.makespan < best.makespan)
+                    best = result;
+            }
+            return context.result(best.order.toSchedule(), context.stopCause());
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Island failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Taboo search of one island, returns its best solution. The improvements of all the islands are published
+     * to the same context, which only keeps the ones that improve on every island. */
+    private Elite runIsland(SolveContext context, int island, AtomicReferenceArray<Elite> published) {
+        Instance instance = context.instance;
+        int previous = (island + islands - 1) % islands;
+        try (TabooSearch search = new TabooSearch(context, initialSolution(context, island), dureeTaboo, 0)) {
+            int lastPublished = Integer.MAX_VALUE;
+            int improvement = search.bestMakespan();
+            context.counters.decodes(1);
+            context.publish(search.best().toSchedule());
+            while (!context.shouldStop() && (search.iteration() < maxIter)) {
+                if (!search.step()) {
+                    break;
+                }
+                if (search.bestMakespan() < improvement && search.bestMakespan() < context.bestMakespan()) {
+                    improvement = search.bestMakespan();
+                    context.counters.decodes(1);
+                    context.publish(search.best().toSchedule());
+                }
+                if (search.iteration() % migrationInterval == 0) {
+                    // emigration: only when our best solution changed
+                    if (search.bestMakespan() < lastPublished) {
+                        lastPublished = search.bestMakespan();
+                        published.set(island, new Elite(search.best().copy(), lastPublished));
+                    }
+                    // immigration from the previous island of the ring
+                    Elite immigrant = published.get(previous);
+                    if (immigrant != null && immigrant.makespan < search.bestMakespan()) {
+                        search.moveTo(immigrant.order);
+                    }
+                }
+            }
+            return new Elite(search.best().copy(), search.bestMakespan());
+        }
+    }
+
+    /** Initial solution of an island: a greedy rule for the first islands, then random solutions. */
+    private static ResourceOrder initialSolution(SolveContext context, int island) {
+        Instance instance = context.instance;
+        if(island < STARTS.length) {
+            return new ResourceOrder(new GreedySolver(STARTS[island]).solve(context).schedule);
+        }
+        // random job numbers, reproducible for a given island
+        Random random = new Random(island);
+        JobNumbers sol = new JobNumbers(instance);
+        for(int j = 0 ; j<instance.numJobs ; j++) {
+            for(int t = 0 ; t<instance.numTasks ; t++) {
+                sol.jobs[sol.nextToSet++] = j;
+            }
+        }
+        for(int i = sol.jobs.length - 1 ; i > 0 ; i--) {
+            int index = random.nextInt(i + 1);
+            int tmp = sol.jobs[index];
+            sol.jobs[index] = sol.jobs[i];
+            sol.jobs[i] = tmp;
+        }
+        return new ResourceOrder(sol.toSchedule());
+    }
+}
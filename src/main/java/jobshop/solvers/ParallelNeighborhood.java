@@ -0,0 +1,135 @@
+package jobshop.solvers;
+
+import jobshop.Counters;
+import jobshop.Instance;
+import jobshop.SolveContext;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Computes the exact makespan of every move of a neighborhood, spreading the moves over a fixed pool of workers.
+ *
+ * The moves are split in one contiguous chunk per worker. Each chunk has its own scratch resource order and
+ * decoding buffers, so workers never share mutable state. The makespans are written at the index of their move
+ * and reduced in index order by argMin(), so the selected move does not depend on the number of threads.
+ */
+class ParallelNeighborhood implements AutoCloseable {
+
+    /** Buffers used to decode the moves of one chunk. */
+    private static class Scratch {
+        final ResourceOrder order;
+        final int[] startTimes;
+        final int[] topoOrder;
+        final ResourceOrder.DecodeBuffers decodeBuffers;
+
+        Scratch(Instance instance) {
+            order = new ResourceOrder(instance);
+            decodeBuffers = new ResourceOrder.DecodeBuffers(instance);
+            startTimes = new int[instance.numJobs * instance.numTasks];
+            topoOrder = new int[instance.numJobs * instance.numTasks];
+        }
+    }
+
+    private final Instance instance;
+    private final int threads;
+    private final Scratch[] scratches;
+    /** null when running on a single thread */
+    private final ExecutorService pool;
+
+    ParallelNeighborhood(Instance instance, int threads) {
+        if(threads < 1)
+            throw new IllegalArgumentException("At least one thread is needed, got " + threads);
+        this.instance = instance;
+        this.threads = threads;
+        this.scratches = new Scratch[threads];
+        for(int i = 0 ; i < threads ; i++) {
+            scratches[i] = new Scratch(instance);
+        }
+        this.pool = threads == 1 ? null : Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "neighborhood-worker");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Writes in makespans[i] the makespan of the solution obtained by applying the swap i of moves on the order,
+     * or Integer.MAX_VALUE if this solution contains a cycle. The order is left unchanged.
+     * The context is checked before each decoding: once it says to stop, the remaining moves get Integer.MAX_VALUE. */
+    void evaluate(ResourceOrder order, Voisinage.Swaps moves, int[] makespans, SolveContext context) {
+        int numChunks = Math.min(threads, moves.size);
+        if(numChunks <= 1) {
+            evaluateChunk(scratches[0], order, moves, makespans, 0, moves.size, context);
+            return;
+        }
+
+        List<Future<?>> chunks = new ArrayList<>(numChunks);
+        for(int c = 0 ; c < numChunks ; c++) {
+            final Scratch scratch = scratches[c];
+            final int from = c * moves.size / numChunks;
+            final int to = (c + 1) * moves.size / numChunks;
+            chunks.add(pool.submit(() -> {
+                long allocated = Counters.threadAllocatedBytes();
+                evaluateChunk(scratch, order, moves, makespans, from, to, context);
+                context.counters.allocated(Counters.threadAllocatedBytes() - allocated);
+            }));
+        }
+        try {
+            for(Future<?> f : chunks) {
+                context.await(f);
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to evaluate the neighborhood", e.getCause());
+        }
+    }
+
+    private void evaluateChunk(Scratch scratch, ResourceOrder order, Voisinage.Swaps moves, int[] makespans,
+                               int from, int to, SolveContext context) {
+        scratch.order.copyFrom(order);
+        int decoded = 0;
+        int infeasible = 0;
+        for(int i = from ; i < to ; i++) {
+            if(context.shouldStop()) {
+                Arrays.fill(makespans, i, to, Integer.MAX_VALUE);
+                break;
+            }
+            decoded++;
+            scratch.order.swap(moves.machine[i], moves.t1[i], moves.t2[i]);
+            if(scratch.order.decode(scratch.startTimes, scratch.topoOrder, null, scratch.decodeBuffers)) {
+                int makespan = 0;
+                for(int j = 0 ; j < instance.numJobs ; j++) {
+                    int last = instance.op(j, instance.numTasks - 1);
+                    makespan = Math.max(makespan, scratch.startTimes[last] + instance.durations[last]);
+                }
+                makespans[i] = makespan;
+            } else {
+                makespans[i] = Integer.MAX_VALUE;
+                infeasible++;
+            }
+            scratch.order.swap(moves.machine[i], moves.t1[i], moves.t2[i]);
+        }
+        context.counters.decodes(decoded);
+        context.counters.infeasibleMoves(infeasible);
+    }
+
+    /** Index of the smallest of the n first values, the first one in case of ties. -1 if n is 0. */
+    static int argMin(int[] values, int n) {
+        int best = -1;
+        for(int i = 0 ; i < n ; i++) {
+            if(best == -1 || values[i] < values[best])
+                best = i;
+        }
+        return best;
+    }
+
+    @Override
+    public void close() {
+        if(pool != null)
+            pool.shutdownNow();
+    }
+}
@@ -0,0 +1,116 @@
+package jobshop.solvers;
+
+import jobshop.Counters;
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.SolveContext;
+import jobshop.SolveStats;
+import jobshop.Solver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Runs several solvers concurrently on the same instance, up to the deadline, and returns the best schedule found.
+ *
+ * Each member runs on its own thread. They all share the context of the portfolio: while they run, their incumbents
+ * are published through SolveContext.publish(), so that they reach its listener as soon as they are found and all
+ * the members stop once one of them reaches the target.
+ * The result returned by each member is then offered to the incumbent of the portfolio, an AtomicReference replaced
+ * by compare-and-set when the result is strictly better, which records the member that found it.
+ * The portfolio returns once every member has returned, the members checking the context often enough to stop
+ * shortly after the deadline: the returned schedule is then the best one published.
+ */
+public class PortfolioSolver implements Solver {
+
+    /** Result of a portfolio, that records which member found the returned schedule. */
+    public static class PortfolioResult extends Result {
+        /** name of the member solver that found the schedule */
+        public final String origin;
+
+        PortfolioResult(Instance instance, Schedule schedule, ExitCause cause, SolveStats stats, String origin) {
+            super(instance, schedule, cause, stats);
+            this.origin = origin;
+        }
+    }
+
+    /** Best schedule found so far and the member that found it. */
+    private static class Incumbent {
+        final Result result;
+        final int makespan;
+        final String origin;
+
+        Incumbent(Result result, String origin) {
+            this.result = result;
+            this.makespan = result.schedule.makespan();
+            this.origin = origin;
+        }
+    }
+
+    /** member solvers, by name */
+    private final LinkedHashMap<String, Solver> members;
+
+    public PortfolioSolver(Map<String, Solver> members) {
+        if(members.isEmpty())
+            throw new IllegalArgumentException("A portfolio needs at least one solver");
+        this.members = new LinkedHashMap<>(members);
+    }
+
+    @Override
+    public Result solve(SolveContext context) {
+        Instance instance = context.instance;
+        AtomicReference<Incumbent> best = new AtomicReference<>();
+        ExecutorService pool = Executors.newFixedThreadPool(members.size(), r -> {
+            Thread t = new Thread(r, "portfolio-member");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Result>> runs = new ArrayList<>();
+            for(Map.Entry<String, Solver> member : members.entrySet()) {
+                runs.add(pool.submit(() -> {
+                    long allocated = Counters.threadAllocatedBytes();
+                    Result result = member.getValue().solve(context);
+                    context.counters.allocated(Counters.threadAllocatedBytes() - allocated);
+                    offer(best, new Incumbent(result, member.getKey()));
+                    return result;
+                }));
+            }
+
+            // every member stops at its next check of the context, once the deadline, the target or the lower bound
+            // is reached: waiting for all of them makes sure that the best schedule published is the one returned
+            for(Future<Result> run : runs) {
+                context.await(run);
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Solver of the portfolio failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Incumbent incumbent = best.get();
+        if(incumbent == null)
+            throw new RuntimeException("No solver of the portfolio returned a schedule");
+        // the member that proved the optimality may not be the one that found the incumbent
+        Result.ExitCause cause = context.provedOptimal() ? Result.ExitCause.ProvedOptimal : incumbent.result.cause;
+        return new PortfolioResult(instance, incumbent.result.schedule, cause, context.stats(), incumbent.origin);
+    }
+
+    /** Replaces the incumbent if the candidate is strictly better. */
+    private static void offer(AtomicReference<Incumbent> best, Incumbent candidate) {
+        while(true) {
+            Incumbent current = best.get();
+            if(current != null && current.makespan <= candidate.makespan)
+                return;
+            if(best.compareAndSet(current, candidate))
+                return;
+        }
+    }
+}
@@ -3,15 +3,100 @@ package jobshop.solvers;
 import jobshop.*;
 import jobshop.encodings.JobNumbers;
 
-import java.util.Optional;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/** Samples random job numbers until the deadline and keeps the best one.
+ *
+ * Samples are decoded into buffers reused from one sample to the next, and only the ones improving on the best
+ * schedule published so far are turned into a Schedule. With several threads, each one samples its own random
+ * stream, split from the seed in the order of the threads, so that a thread always draws the same sequence of
+ * samples for a given seed.
+ */
 public class RandomSolver implements Solver {
 
+    /** Best sample of a thread. */
+    private static class Sample {
+        final JobNumbers sol;
+        final int makespan;
+
+        Sample(JobNumbers sol, int makespan) {
+            this.sol = sol;
+            this.makespan = makespan;
+        }
+    }
+
+    /** number of threads drawing samples */
+    private final int threads;
+    /** seed of the random streams of the threads */
+    private final long seed;
+
+    public RandomSolver() {
+        this(1);
+    }
+
+    public RandomSolver(int threads) {
+        this(threads, 0);
+    }
+
+    public RandomSolver(int threads, long seed) {
+        if(threads < 1)
+            throw new IllegalArgumentException("Need at least one thread");
+        this.threads = threads;
+        this.seed = seed;
+    }
+
     @Override
-    public Result solve(Instance instance, long deadline) {
-        Random generator = new Random(0);
+    public Result solve(SolveContext context) {
+        // streams split in a fixed order, whatever the scheduling of the threads
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[threads];
+        for(int i = 0 ; i < threads ; i++) {
+            streams[i] = root.split();
+        }
+        if(threads == 1) {
+            Sample best = sample(context, streams[0]);
+            return context.result(best.sol.toSchedule(), context.stopCause());
+        }
 
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "random-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Sample>> runs = new ArrayList<>();
+            for(SplittableRandom stream : streams) {
+                runs.add(pool.submit(() -> {
+                    long allocated = Counters.threadAllocatedBytes();
+                    Sample sample = sample(context, stream);
+                    context.counters.allocated(Counters.threadAllocatedBytes() - allocated);
+                    return sample;
+                }));
+            }
+            Sample best = null;
+            for(Future<Sample> run : runs) {
+                // an interrupt cancels the context, the samplers then stop at their next sample
+                Sample sample = context.await(run);
+                if(best == null || sample.makespan < best.makespan)
+                    best = sample;
+            }
+            return context.result(best.sol.toSchedule(), context.stopCause());
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Sampler failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Draws samples from the stream until the context says to stop, returns the best one. */
+    private static Sample sample(SolveContext context, SplittableRandom random) {
+        Instance instance = context.instance;
         JobNumbers sol = new JobNumbers(instance);
 
         for(int j = 0 ; j<instance.numJobs ; j++) {
@@ -19,21 +104,36 @@ public class RandomSolver implements Solver {
                 sol.jobs[sol.nextToSet++] = j;
             }
         }
-        Schedule best = sol.toSchedule();
-        while(deadline - System.currentTimeMillis() > 1) {
-            shuffleArray(sol.jobs, generator);
-            Schedule s = sol.toSchedule();
-            if(s.makespan() < best.makespan()) {
-                best = s;
+        // buffers of the decoding, reused by all the samples
+        int[] startTimes = new int[instance.numJobs * instance.numTasks];
+        int[] nextTask = new int[instance.numJobs];
+        int[] nextFreeTimeResource = new int[instance.numMachines];
+
+        int[] best = sol.jobs.clone();
+        int bestMakespan = sol.decode(startTimes, nextTask, nextFreeTimeResource);
+        context.publish(sol.toSchedule());
+        long samples = 1;
+        while(!context.shouldStop()) {
+            shuffleArray(sol.jobs, random);
+            int makespan = sol.decode(startTimes, nextTask, nextFreeTimeResource);
+            samples++;
+            if(makespan < bestMakespan) {
+                bestMakespan = makespan;
+                System.arraycopy(sol.jobs, 0, best, 0, best.length);
+                // only schedules that may improve on all the threads are built
+                if(makespan < context.bestMakespan())
+                    context.publish(sol.toSchedule());
             }
         }
+        context.counters.iterations(samples - 1);
+        context.counters.decodes(samples);
 
-
-        return new Result(instance, best, Result.ExitCause.Timeout);
+        System.arraycopy(best, 0, sol.jobs, 0, best.length);
+        return new Sample(sol, bestMakespan);
     }
 
     /** Simple Fisher–Yates array shuffling */
-    private static void shuffleArray(int[] array, Random random)
+    private static void shuffleArray(int[] array, SplittableRandom random)
     {
         int index;
         for (int i = array.length - 1; i > 0; i--)
@@ -48,5 +148,3 @@ public class RandomSolver implements Solver {
         }
     }
 }
-
-
@@ -0,0 +1,107 @@
+package jobshop.solvers;
+
+import java.util.Arrays;
+
+/** Memory of the taboo search: the swaps that are forbidden and the iteration until which they stay forbidden.
+ *
+ * A swap is identified by its machine and the jobs of the two swapped tasks, in their order on the machine.
+ * Only the swaps made during the last iterations are taboo, so they are kept in a small open-addressing hash table
+ * whose size depends on the taboo duration but not on the size of the instance. Expired entries are reused,
+ * and the table is rebuilt with the live entries only when it gets too full, so that lookups stay O(1).
+ */
+final class TabooList {
+
+    private final long numJobs;
+
+    /** swap identifier of each slot */
+    private long[] attributes;
+    /** last iteration during which the swap of each slot is taboo, 0 for a slot never used */
+    private int[] expiry;
+    /** number of slots that are not empty, expired or not */
+    private int used = 0;
+
+    TabooList(int numJobs, int dureeTaboo) {
+        this.numJobs = numJobs;
+        int capacity = Integer.highestOneBit(Math.max(16, 4 * (dureeTaboo + 1)) - 1) << 1;
+        attributes = new long[capacity];
+        expiry = new int[capacity];
+    }
+
+    private long attribute(int machine, int first, int second) {
+        return (machine * numJobs + first) * numJobs + second;
+    }
+
+    private int slot(long attribute) {
+        return (int) ((attribute * 0x9E3779B97F4A7C15L) >>> 33) & (expiry.length - 1);
+    }
+
+    /** True if swapping the task of job `first` with the following task of job `second` on the machine
+     * is taboo at the given iteration. */
+    boolean isTaboo(int machine, int first, int second, int iteration) {
+        long attribute = attribute(machine, first, second);
+        for(int i = slot(attribute) ; expiry[i] != 0 ; i = (i + 1) & (expiry.length - 1)) {
+            if(attributes[i] == attribute)
+                return expiry[i] >= iteration;
+        }
+        return false;
+    }
+
+    /** Forbids the swap of job `first` with the following job `second` on the machine up to iteration `until`
+     * included. `iteration` is the current iteration, entries expired before it can be reused. */
+    void forbid(int machine, int first, int second, int iteration, int until) {
+        if(until < iteration)
+            return;
+        long attribute = attribute(machine, first, second);
+        int reusable = -1;
+        int i = slot(attribute);
+        for( ; expiry[i] != 0 ; i = (i + 1) & (expiry.length - 1)) {
+            if(attributes[i] == attribute) {
+                expiry[i] = Math.max(expiry[i], until);
+                return;
+            }
+            if(reusable == -1 && expiry[i] < iteration)
+                reusable = i;
+        }
+        if(reusable != -1) {
+            attributes[reusable] = attribute;
+            expiry[reusable] = until;
+            return;
+        }
+        attributes[i] = attribute;
+        expiry[i] = until;
+        used++;
+        if(2 * used > expiry.length)
+            rebuild(iteration);
+    }
+
+    /** Forgets all the taboo swaps. */
+    void clear() {
+        Arrays.fill(expiry, 0);
+        used = 0;
+    }
+
+    /** Reinserts the entries that are still taboo, in a larger table if they fill more than a quarter of it. */
+    private void rebuild(int iteration) {
+        long[] oldAttributes = attributes;
+        int[] oldExpiry = expiry;
+        int live = 0;
+        for(int e : oldExpiry) {
+            if(e >= iteration)
+                live++;
+        }
+        int capacity = 4 * live > oldExpiry.length ? 2 * oldExpiry.length : oldExpiry.length;
+        attributes = new long[capacity];
+        expiry = new int[capacity];
+        used = 0;
+        for(int j = 0 ; j < oldExpiry.length ; j++) {
+            if(oldExpiry[j] >= iteration) {
+                int i = slot(oldAttributes[j]);
+                while(expiry[i] != 0)
+                    i = (i + 1) & (capacity - 1);
+                attributes[i] = oldAttributes[j];
+                expiry[i] = oldExpiry[j];
+                used++;
+            }
+        }
+    }
+}
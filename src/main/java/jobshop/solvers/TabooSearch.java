@@ -0,0 +1,166 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.SolveContext;
+import jobshop.encodings.ResourceOrder;
+
+/** One trajectory of taboo search, advanced one iteration at a time.
+ *
+ * At each iteration the best non-taboo neighbor of the current solution (Nowicki and Smutnicki neighborhood)
+ * replaces it, even if it is worse, and the opposite swap becomes taboo for dureeTaboo iterations.
+ * A taboo neighbor is still accepted if it is better than the best solution found (aspiration), and when all the
+ * neighbors are taboo the best of them is taken.
+ * Without threads, the neighbors are compared by Taillard's estimate, a lower bound of their makespan: aspiration
+ * then accepts a taboo neighbor whose estimate beats the best solution, even if its actual makespan does not.
+ */
+class TabooSearch implements AutoCloseable {
+
+    private final Instance instance;
+    private final SolveContext context;
+    private final int dureeTaboo;
+
+    /** solution courante, modifiee sur place */
+    private final ResourceOrder current;
+    private final DisjunctiveGraph graph;
+    /** null if the neighbors are estimated, otherwise decodes them exactly */
+    private final ParallelNeighborhood scan;
+
+    // meilleure solution rencontree, mise a jour par simple copie de tableaux
+    private final ResourceOrder bestOrder;
+    private int bestMakespan;
+
+    /** number of iterations done */
+    private int k = 0;
+
+    /** swaps that are taboo, by machine and pair of jobs */
+    private final TabooList taboo;
+
+    // voisinage de l'iteration courante, alloue une fois : un voisin par tache au plus
+    private final Voisinage.Swaps voisins;
+    private final int[] values;
+    private final boolean[] interdits;
+
+    /** Starts a search from the given solution, which is not modified.
+     * With threads > 0, neighbors are decoded exactly on that many threads instead of being estimated,
+     * and the decoding of the neighborhood stops as soon as the context says so. */
+    TabooSearch(SolveContext context, ResourceOrder start, int dureeTaboo, int threads) {
+        this.instance = context.instance;
+        this.context = context;
+        this.dureeTaboo = dureeTaboo;
+        this.current = start.copy();
+        this.graph = new DisjunctiveGraph(current);
+        context.counters.decodes(1);
+        if(!graph.update())
+            throw new IllegalArgumentException("The initial solution contains a cycle");
+        this.bestOrder = current.copy();
+        this.bestMakespan = graph.makespan();
+        this.taboo = new TabooList(instance.numJobs, dureeTaboo);
+        this.scan = threads > 0 ? new ParallelNeighborhood(instance, threads) : null;
+        int numOps = instance.numJobs * instance.numTasks;
+        this.voisins = new Voisinage.Swaps(numOps);
+        this.values = new int[numOps];
+        this.interdits = new boolean[numOps];
+    }
+
+    /** Number of iterations done so far. */
+    int iteration() {
+        return k;
+    }
+
+    int currentMakespan() {
+        return graph.makespan();
+    }
+
+    int bestMakespan() {
+        return bestMakespan;
+    }
+
+    /** Best solution found so far. It is updated in place by the following iterations. */
+    ResourceOrder best() {
+        return bestOrder;
+    }
+
+    /** Makes one iteration. Returns false if no move was possible, in which case the search is stuck. */
+    boolean step() {
+        k++;
+        context.counters.iteration();
+        Voisinage.neighborsOfCriticalPath(graph, voisins);
+        context.counters.criticalPath();
+        int n = voisins.size;
+        //recherche des voisins, en notant ceux qui sont taboo
+        for (int i = 0; i < n; i++) {
+            int machine = voisins.machine[i];
+            interdits[i] = taboo.isTaboo(machine, jobAt(machine, voisins.t1[i]), jobAt(machine, voisins.t2[i]), k);
+        }
+        context.counters.neighbors(n);
+        // objectif de chaque voisin : estime sans decoder le voisin, ou decode en parallele
+        if (scan == null) {
+            for (int i = 0; i < n; i++) {
+                values[i] = graph.evaluate(voisins.machine[i], voisins.t1[i], voisins.t2[i]);
+            }
+        } else {
+            scan.evaluate(current, voisins, values, context);
+        }
+        // meilleur voisin non taboo, un voisin taboo etant accepte s'il ameliore la meilleure solution (aspiration)
+        // sans threads, c'est l'estimation qui est comparee : une borne inf, le voisin peut ne pas ameliorer en vrai
+        int best = -1;
+        for (int i = 0; i < n; i++) {
+            boolean admissible = !interdits[i] || values[i] < bestMakespan;
+            if (admissible && values[i] != Integer.MAX_VALUE && (best == -1 || values[i] < values[best])) {
+                best = i;
+            }
+        }
+        if (best == -1) {
+            // tous les voisins sont taboo : on prend le meilleur quand meme plutot que de s'arreter
+            best = ParallelNeighborhood.argMin(values, n);
+        }
+        if (best == -1 || values[best] == Integer.MAX_VALUE) {
+            // pas de bloc sur le chemin critique, ou l'evaluation a ete interrompue
+            return false;
+        }
+        // enregistre le swap du meilleur voisin pour ajouter son opposé dans taboo
+        int machine = voisins.machine[best];
+        int t1 = voisins.t1[best];
+        int t2 = voisins.t2[best];
+        //ajout dans taboo : remettre les deux jobs dans leur ordre actuel est interdit
+        taboo.forbid(machine, jobAt(machine, t2), jobAt(machine, t1), k, k + dureeTaboo);
+        // seul le meilleur voisin est reellement applique
+        // mise a jour incrementale des dates, le swap n'est pas applique s'il cree un cycle
+        if (!graph.apply(machine, t1, t2)) {
+            context.counters.infeasibleMoves(1);
+            // ne doit pas arriver pour un swap sur le chemin critique
+            return false;
+        }
+        //regarde si ameliorant
+        if (graph.makespan() < bestMakespan) {
+            bestMakespan = graph.makespan();
+            bestOrder.copyFrom(current);
+        }
+        return true;
+    }
+
+    /** Continues the search from another solution, which is not modified. The taboo memory is cleared
+     * since it refers to the previous trajectory. */
+    void moveTo(ResourceOrder order) {
+        current.copyFrom(order);
+        context.counters.decodes(1);
+        if(!graph.update())
+            throw new IllegalArgumentException("The solution contains a cycle");
+        if(graph.makespan() < bestMakespan) {
+            bestMakespan = graph.makespan();
+            bestOrder.copyFrom(current);
+        }
+        taboo.clear();
+    }
+
+    /** Job of the task at the given position on the machine, in the current solution. */
+    private int jobAt(int machine, int position) {
+        return current.tasksByMachine[machine][position] / instance.numTasks;
+    }
+
+    @Override
+    public void close() {
+        if(scan != null)
+            scan.close();
+    }
+}
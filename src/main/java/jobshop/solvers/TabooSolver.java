@@ -2,87 +2,67 @@ package jobshop.solvers;
 
 import jobshop.Instance;
 import jobshop.Result;
-import jobshop.Schedule;
+import jobshop.SolveContext;
 import jobshop.Solver;
 import jobshop.encodings.ResourceOrder;
-import java.util.List;
+import jobshop.io.SolutionStore;
 
 public class TabooSolver implements Solver {
-    private int maxIter;
-    private int dureeTaboo;
+    private final int maxIter;
+    private final int dureeTaboo;
+    /** 0 if the neighbors are estimated from heads and tails, otherwise number of threads decoding them */
+    private final int threads;
+    /** best known solutions, null to always start from a greedy solution. Shared by the concurrent solves. */
+    private volatile SolutionStore store = null;
 
     public TabooSolver(int iter, int taboo){
+        this(iter, taboo, 0);
+    }
+
+    /** With threads > 0, the neighbors are not estimated but decoded exactly on the given number of threads.
+     * The result does not depend on the number of threads. */
+    public TabooSolver(int iter, int taboo, int threads){
         this.maxIter = iter;
         this.dureeTaboo = taboo;
+        this.threads = threads;
     }
 
-    /**
-     * solutionsTaboo
-     * Consider the solution in ResourceOrder representation
-     * machine 1 : (0,1) (1,2) (2,2)
-     * machine 2 : (0,2) (2,1) (1,1)
-     *          m1,t1   m1,t2   m1,t3   m2,t1   m2,t2   m2,t3
-     * m1,t1      0       0       0       0       0       0
-     * m1,t2      0       0       0       0       0       0
-     * m1,t3      0       0       0       0       0       0
-     * m2,t1      0       0       0       0       0       0
-     * m2,t2      0       0       0       0       0       0
-     * m2,t3      0       0       0       0       0       0
-     */
-
+    /** Starts the searches from the solution of the store when it has one for the instance (warm start),
+     * and stores the solutions found when they improve it. */
+    public void setSolutionStore(SolutionStore store) {
+        this.store = store;
+    }
 
     @Override
-    public Result solve(Instance instance, long deadline) {
+    public Result solve(SolveContext context) {
+        Instance instance = context.instance;
         //Init
-        Schedule bestSolution = new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(instance,deadline).schedule;
-        Schedule currentSolution = bestSolution;
-        int k = 0;
-        //matrice de taches, ligne + colonne = permutation
-        int [][] solutionsTaboo = new int [instance.numJobs * instance.numTasks][instance.numJobs * instance.numTasks];
+        SolutionStore store = this.store;
+        ResourceOrder init = store == null ? null : store.load(instance);
+        if (init == null) {
+            init = new ResourceOrder(new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(context).schedule);
+        }
 
-        while ((deadline - System.currentTimeMillis() > 1) && (k < maxIter)) {
-            k++;
-            List<Voisinage.Block> blocks = Voisinage.blocksOfCriticalPath(new ResourceOrder(currentSolution));
-            ResourceOrder bestVoisin = null;
-            Voisinage.Swap bestSwap = null; // enregistre le swap du meilleur voisin pour ajouter son opposé dans taboo
+        try (TabooSearch search = new TabooSearch(context, init, dureeTaboo, threads)) {
+            int published = search.bestMakespan();
+            context.counters.decodes(1);
+            context.publish(search.best().toSchedule());
             //Boucle
-            //recherche du meilleur voisin
-            for (Voisinage.Block b : blocks) {
-                List<Voisinage.Swap> voisins = Voisinage.neighbors(b);
-                for (Voisinage.Swap swap : voisins) {
-                    // voisin de la meilleure solution
-                    ResourceOrder voisin = new ResourceOrder(currentSolution);
-                    // is not taboo?
-                    if (solutionsTaboo[swap.t1 + instance.numJobs * swap.machine][swap.t2 + instance.numJobs * swap.machine] < k) {
-                        swap.applyOn(voisin);
-                        Schedule voisinSched = voisin.toSchedule();
-                        // si l'objectif est meilleur
-                        if (bestVoisin == null || (voisinSched != null && obj(voisinSched) < obj(bestVoisin))) {
-                            bestVoisin = voisin.copy();
-                            bestSwap = new Voisinage.Swap(swap.machine, swap.t1, swap.t2);
-                        }
-                    }
+            while (!context.shouldStop() && (search.iteration() < maxIter)) {
+                if (!search.step()) {
+                    break;
+                }
+                if (search.bestMakespan() < published) {
+                    published = search.bestMakespan();
+                    context.counters.decodes(1);
+                    context.publish(search.best().toSchedule());
                 }
             }
-            // fin de parcours des voisins, on a le meilleur
-            //ajout dans taboo
-            solutionsTaboo[bestSwap.t2 + instance.numJobs * bestSwap.machine][bestSwap.t1 + instance.numJobs * bestSwap.machine] = k + dureeTaboo;
-            currentSolution = bestVoisin.toSchedule();
-            //regarde si ameliorant
-            if (obj(bestVoisin) < obj(bestSolution)) {
-                bestSolution = bestVoisin.toSchedule();
+            if (store != null) {
+                store.offer(search.best());
             }
+            return context.result(search.best().toSchedule(), context.stopCause());
         }
-        return new Result(instance, bestSolution, Result.ExitCause.Timeout);
-
-    }
-
-    private int obj(ResourceOrder order){
-        return order.toSchedule().makespan();
-    }
-
-    private int obj(Schedule sched){
-        return sched.makespan();
     }
 
 }
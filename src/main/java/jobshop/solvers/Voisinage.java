@@ -1,8 +1,7 @@
 package jobshop.solvers;
 
-import jobshop.Schedule;
+import jobshop.Instance;
 import jobshop.encodings.ResourceOrder;
-import jobshop.encodings.Task;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -67,54 +66,110 @@ public class Voisinage {
 
         /** Apply this swap on the given resource order, transforming it into a new solution. */
         public void applyOn(ResourceOrder order) {
-            Task auxi = order.matrixTask[machine][t1];
-            order.matrixTask[machine][t1] = order.matrixTask[machine][t2];
-            order.matrixTask[machine][t2] = auxi;
+            order.swap(machine, t1, t2);
+        }
+
+        /** Revert this swap on a resource order it was applied on. */
+        public void undoOn(ResourceOrder order) {
+            order.swap(machine, t1, t2);
         }
     }
     
+    /** Swaps of a neighborhood stored in primitive arrays, which are allocated once and reused by the following
+     * neighborhoods: the swap i exchanges the tasks at positions t1[i] and t2[i] of machine[i]. */
+    static class Swaps {
+        final int[] machine;
+        final int[] t1;
+        final int[] t2;
+        /** number of swaps */
+        int size = 0;
+
+        Swaps(int capacity) {
+            machine = new int[capacity];
+            t1 = new int[capacity];
+            t2 = new int[capacity];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(int machine, int t1, int t2) {
+            this.machine[size] = machine;
+            this.t1[size] = t1;
+            this.t2[size] = t2;
+            size++;
+        }
+    }
+
     /** Returns a list of all blocks of the critical path. */
     static List<Block> blocksOfCriticalPath(ResourceOrder order) {
-        ArrayList<Block> blocks = new ArrayList<Block>();
-        Schedule sched = order.toSchedule();
-        List<Task> criticalPath = sched.criticalPath();
+        Instance instance = order.instance;
+        int numOps = instance.numJobs * instance.numTasks;
+        int[] startTimes = new int[numOps];
+        int[] binding = new int[numOps];
+        if(!order.decode(startTimes, new int[numOps], binding))
+            throw new IllegalArgumentException("The resource order contains a cycle");
+        int[] path = new int[numOps];
+        int length = order.criticalPath(startTimes, binding, path);
+        return blocksOfPath(order, path, length);
+    }
 
-        Task t = criticalPath.get(0);
-        int numMachine = order.instance.machine(t.job,t.task);
-        Task taskDebut = new Task(t.job,t.task);
+    /** Replaces the content of swaps by the Nowicki and Smutnicki neighborhood of the critical path of the graph's
+     * resource order, in the order of neighbors() on the blocks of the path, without decoding the order nor
+     * allocating. swaps must have a capacity of at least the number of tasks of the instance. */
+    static void neighborsOfCriticalPath(DisjunctiveGraph graph, Swaps swaps) {
+        ResourceOrder order = graph.order();
+        Instance instance = order.instance;
+        int length = graph.criticalPath();
+        int[] path = graph.path();
+        swaps.clear();
+        int debut = path[0];
         int nbTask = 1;
-
-        for (int i = 1; i < criticalPath.size(); i++){
-            t = criticalPath.get(i);
-            //tache consecutive utilisant la meme ressource
-            if(numMachine == order.instance.machine(t.job,t.task)){
+        for (int i = 1; i <= length; i++){
+            int op = i < length ? path[i] : -1;
+            if(op != -1 && instance.machines[op] == instance.machines[debut]){
                 nbTask++;
             }else{
-                // pas la meme ressource mais il y avait deja au moins 2 taches consecutives avant
                 if(nbTask >= 2){
-                    int debut = debut(taskDebut,numMachine,order);
-                    blocks.add(new Block(numMachine,debut,debut + nbTask - 1));
+                    int machine = instance.machines[debut];
+                    int first = order.position(debut);
+                    int last = first + nbTask - 1;
+                    if(nbTask == 2){
+                        swaps.add(machine, first, last);
+                    }else{
+                        swaps.add(machine, first, first + 1);
+                        swaps.add(machine, last - 1, last);
+                    }
                 }
                 nbTask = 1;
-                taskDebut = new Task(t.job,t.task);
-                numMachine = order.instance.machine(t.job,t.task);
+                debut = op;
             }
         }
-        // on a fini le parcours du chemin critique et il y avait au moins 2 taches consecutives
-        if(nbTask >= 2){
-            int debut = debut(taskDebut,numMachine,order);
-            blocks.add(new Block(numMachine,debut,debut + nbTask - 1));
-        }
-        return blocks;
     }
 
-    private static int debut(Task t, int m, ResourceOrder order){
-        for(int i = 0; i < order.matrixTask[m].length; i++){
-            if(t.equals(order.matrixTask[m][i])){
-                return i;
+    /** Blocks of the length first tasks of path, a critical path of the resource order, in one pass. */
+    private static List<Block> blocksOfPath(ResourceOrder order, int[] path, int length) {
+        Instance instance = order.instance;
+        ArrayList<Block> blocks = new ArrayList<Block>();
+        int debut = path[0];
+        int nbTask = 1;
+        for (int i = 1; i <= length; i++){
+            int op = i < length ? path[i] : -1;
+            //tache consecutive utilisant la meme ressource
+            if(op != -1 && instance.machines[op] == instance.machines[debut]){
+                nbTask++;
+            }else{
+                // pas la meme ressource mais il y avait deja au moins 2 taches consecutives avant
+                if(nbTask >= 2){
+                    int position = order.position(debut);
+                    blocks.add(new Block(instance.machines[debut], position, position + nbTask - 1));
+                }
+                nbTask = 1;
+                debut = op;
             }
         }
-        return -1;
+        return blocks;
     }
 
     /** For a given block, return the possible swaps for the Nowicki and Smutnicki neighborhood */
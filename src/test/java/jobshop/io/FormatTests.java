@@ -0,0 +1,120 @@
+package jobshop.io;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import jobshop.Solver;
+import jobshop.encodings.ResourceOrder;
+import jobshop.solvers.DescentSolver;
+import jobshop.solvers.GreedySolver;
+import jobshop.solvers.TabooSolver;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class FormatTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<Path> instanceFiles() throws IOException {
+        try(Stream<Path> files = Files.list(Paths.get("instances"))) {
+            return files.filter(p -> !p.getFileName().toString().endsWith(".md"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static void assertSameInstance(Instance expected, Instance actual) {
+        assert expected.numJobs == actual.numJobs;
+        assert expected.numTasks == actual.numTasks;
+        assert Arrays.equals(expected.machines, actual.machines);
+        assert Arrays.equals(expected.durations, actual.durations);
+    }
+
+    @Test
+    public void testInstanceRoundTrip() throws IOException {
+        Path binary = folder.newFile("instance.bin").toPath();
+        Path text = folder.newFile("instance.txt").toPath();
+        for(Path file : instanceFiles()) {
+            Instance instance = Instance.fromFile(file);
+
+            // text -> binary -> instance
+            BinaryFormat.writeInstance(instance, binary);
+            Instance fromBinary = BinaryFormat.readInstance(binary);
+            assertSameInstance(instance, fromBinary);
+
+            // binary -> text -> instance
+            TextFormat.writeInstance(fromBinary, text);
+            assertSameInstance(instance, Instance.fromFile(text));
+        }
+    }
+
+    @Test
+    public void testSolutionRoundTrip() throws IOException {
+        Path binary = folder.newFile("solution.bin").toPath();
+        for(Path file : instanceFiles()) {
+            Instance instance = Instance.fromFile(file);
+            Schedule schedule = new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(instance, Long.MAX_VALUE).schedule;
+            ResourceOrder order = new ResourceOrder(schedule);
+
+            BinaryFormat.writeSolution(order, schedule, binary);
+            BinaryFormat.Solution solution = BinaryFormat.readSolution(instance, binary);
+
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                assert Arrays.equals(order.tasksByMachine[m], solution.order.tasksByMachine[m]);
+            }
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                for(int t = 0 ; t < instance.numTasks ; t++) {
+                    assert schedule.startTime(j, t) == solution.schedule.startTime(j, t);
+                }
+            }
+            assert solution.schedule.isValid();
+            assert solution.order.toSchedule().makespan() == schedule.makespan();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsWrongKind() throws IOException {
+        Path binary = folder.newFile("instance.bin").toPath();
+        BinaryFormat.writeInstance(Instance.fromFile(Paths.get("instances/aaa1")), binary);
+        BinaryFormat.readSolution(Instance.fromFile(Paths.get("instances/aaa1")), binary);
+    }
+
+    @Test
+    public void testStoreIgnoresCorruptSolution() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Path directory = folder.newFolder("store").toPath();
+        Path file = directory.resolve(SolutionStore.key(instance) + ".sol");
+        SolutionStore store = new SolutionStore(directory);
+
+        DescentSolver descent = new DescentSolver();
+        descent.setSolutionStore(store);
+        TabooSolver taboo = new TabooSolver(100, 10);
+        taboo.setSolutionStore(store);
+
+        // garbage, then a truncated solution
+        store.offer(new ResourceOrder(new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(instance, Long.MAX_VALUE).schedule));
+        byte[] valid = Files.readAllBytes(file);
+        byte[][] corrupt = {"not a solution".getBytes(), Arrays.copyOf(valid, valid.length / 2)};
+        for(byte[] content : corrupt) {
+            for(Solver solver : new Solver[]{descent, taboo}) {
+                Files.write(file, content);
+                assert store.load(instance) == null;
+                Schedule schedule = solver.solve(instance, System.currentTimeMillis() + 1000).schedule;
+                assert schedule.isValid();
+                // the corrupt file was replaced by the solution found
+                ResourceOrder stored = store.load(instance);
+                assert stored != null && stored.toSchedule().makespan() == schedule.makespan();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Solver;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Runs the same solver objects on many instances at the same time, and checks that each call gives the result of
+ * a call made alone. */
+public class ConcurrencyTests {
+
+    /** solvers whose result only depends on the instance when they stop by themselves before the deadline */
+    private static Map<String, Solver> deterministicSolvers() {
+        Map<String, Solver> solvers = new LinkedHashMap<>();
+        solvers.put("basic", new BasicSolver());
+        for(GreedySolver.Priority priority : GreedySolver.Priority.values()) {
+            solvers.put(priority.name(), new GreedySolver(priority));
+        }
+        solvers.put("descent", new DescentSolver());
+        solvers.put("descent-par", new DescentSolver(2));
+        solvers.put("taboo200-20", new TabooSolver(200, 20));
+        solvers.put("taboo100-10-par", new TabooSolver(100, 10, 2));
+        solvers.put("bnb", new BranchAndBoundSolver());
+        return solvers;
+    }
+
+    private static final String[] INSTANCES = {"aaa1", "ft06", "la01", "la05", "la16", "ft10", "ta21", "ta51"};
+    /** instances small enough for the branch and bound */
+    private static final List<String> SMALL = Arrays.asList("aaa1", "ft06", "la01", "la05");
+
+    /** number of concurrent calls of every solver on every instance */
+    private static final int COPIES = 4;
+
+    private static final long DEADLINE_MS = 60_000;
+
+    private static boolean sameResult(Result expected, Result actual) {
+        Instance instance = expected.instance;
+        if(expected.cause != actual.cause || !actual.schedule.isValid())
+            return false;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                if(expected.schedule.startTime(j, t) != actual.schedule.startTime(j, t))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    public void testConcurrentSolves() throws Exception {
+        Map<String, Solver> solvers = deterministicSolvers();
+        List<Instance> instances = new ArrayList<>();
+        for(String name : INSTANCES) {
+            instances.add(Instance.fromFile(Paths.get("instances/" + name)));
+        }
+
+        // reference results, one call at a time
+        List<String> names = new ArrayList<>();
+        List<Solver> runSolvers = new ArrayList<>();
+        List<Instance> runInstances = new ArrayList<>();
+        List<Result> expected = new ArrayList<>();
+        for(Map.Entry<String, Solver> solver : solvers.entrySet()) {
+            for(int i = 0 ; i < INSTANCES.length ; i++) {
+                if(solver.getKey().equals("bnb") && !SMALL.contains(INSTANCES[i]))
+                    continue;
+                names.add(solver.getKey() + " on " + INSTANCES[i]);
+                runSolvers.add(solver.getValue());
+                runInstances.add(instances.get(i));
+                expected.add(solver.getValue().solve(instances.get(i), System.currentTimeMillis() + DEADLINE_MS));
+            }
+        }
+
+        // the same calls, several times each, all at once on the same solver objects
+        int calls = COPIES * expected.size();
+        ExecutorService pool = Executors.newFixedThreadPool(calls);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Result>> results = new ArrayList<>();
+            for(int copy = 0 ; copy < COPIES ; copy++) {
+                for(int run = 0 ; run < expected.size() ; run++) {
+                    Solver solver = runSolvers.get(run);
+                    Instance instance = runInstances.get(run);
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        return solver.solve(instance, System.currentTimeMillis() + DEADLINE_MS);
+                    }));
+                }
+            }
+            start.countDown();
+            for(int i = 0 ; i < results.size() ; i++) {
+                int run = i % expected.size();
+                assert sameResult(expected.get(run), results.get(i).get()) : names.get(run) + " differs when run concurrently";
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
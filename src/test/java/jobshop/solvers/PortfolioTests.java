@@ -0,0 +1,52 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.SolveContext;
+import jobshop.Solver;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+
+public class PortfolioTests {
+
+    @Test
+    public void testReturnsBestPublished() throws Exception {
+        LinkedHashMap<String, Solver> members = new LinkedHashMap<>();
+        members.put("est_lrpt", new GreedySolver(GreedySolver.Priority.EST_LRPT));
+        members.put("random", new RandomSolver());
+        members.put("descent", new DescentSolver());
+        members.put("taboo", new TabooSolver(1_000_000, 20));
+        PortfolioSolver portfolio = new PortfolioSolver(members);
+
+        for(String name : new String[]{"ft10", "la21", "ta21", "ta51"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            // short budgets, so that the members are still improving when the deadline comes
+            for(long budgetMs : new long[]{20, 100, 300}) {
+                SolveContext context = new SolveContext(instance, System.currentTimeMillis() + budgetMs);
+                Result result = portfolio.solve(context);
+                assert result.schedule.isValid();
+                assert result.schedule.makespan() == context.bestMakespan()
+                        : name + ": returned " + result.schedule.makespan() + ", best published " + context.bestMakespan();
+                assert members.containsKey(((PortfolioSolver.PortfolioResult) result).origin);
+            }
+        }
+    }
+
+    @Test
+    public void testOriginIsTheMemberThatFoundTheSchedule() throws Exception {
+        LinkedHashMap<String, Solver> members = new LinkedHashMap<>();
+        members.put("basic", new BasicSolver());
+        members.put("taboo", new TabooSolver(1_000_000, 20));
+        PortfolioSolver portfolio = new PortfolioSolver(members);
+
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        int basic = new BasicSolver().solve(instance, System.currentTimeMillis() + 1000).schedule.makespan();
+        SolveContext context = new SolveContext(instance, System.currentTimeMillis() + 200);
+        PortfolioSolver.PortfolioResult result = (PortfolioSolver.PortfolioResult) portfolio.solve(context);
+        // the taboo search starts from a greedy solution far better than the one of the basic solver
+        assert result.schedule.makespan() < basic;
+        assert result.origin.equals("taboo") : result.origin;
+    }
+}